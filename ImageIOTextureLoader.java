@@ -0,0 +1,48 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import simple3d.Texture;
+import simple3d.TextureLoader;
+
+/**
+ * ImageIOTextureLoader decodes textures with ImageIO, supporting image formats like png and jpeg.
+ * It is registered by the demo applications with TextureCache.setLoader()
+ * v1.0 18-10-2026: first release
+ */
+public class ImageIOTextureLoader implements TextureLoader {
+	@Override
+	public Texture load(String path) throws IOException {
+		BufferedImage image = ImageIO.read(new File(path));
+		if (image == null)
+			throw new IOException("unsupported image format in texture file " + path);
+		int width = image.getWidth();
+		int height = image.getHeight();
+		return new Texture(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+	}
+}
@@ -61,6 +61,7 @@ import simple3d.*;
  * v1.0.1, 14-12-2025: added menu bar for file handling and help
  *         17-12-2025: new shape regularPolygon and extrude polygons
  *         22-12-2025: screen size is no longer passed to Engine3D
+ *         18-10-2026: textures are decoded by ImageIOTextureLoader
  */
 
 public class Scene3D extends JFrame {
@@ -332,8 +333,7 @@ public class Scene3D extends JFrame {
 					screenPoly.addPoint(x, y);
 				}
 				// Draw filled polygon with flat shaded color
-				simple3d.Color color = engine.getFlatShaderColor(poly);
-				g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue()));
+				g.setColor(new Color(engine.getFlatShaderRGB(poly)));
 				g.fillPolygon(screenPoly);
 				g.drawPolygon(screenPoly);
 			});
@@ -532,6 +532,7 @@ public class Scene3D extends JFrame {
 			Color groundColor = new Color(140, 60, 20);// Ground level color
 
             final Light3D light = new Light3D(new simple3d.Color(255, 255, 255), 10, 20, -10);
+			TextureCache.setLoader(new ImageIOTextureLoader());
 			Engine3D engine = new Engine3D(print_statistics);
 			if (args.length > 0) {
 				try	{
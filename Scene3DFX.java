@@ -28,7 +28,8 @@ import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.paint.Color;
@@ -64,11 +65,19 @@ import simple3d.*;
  *
  * v1.0, 23-12-2025: Scene3DFX first release
  * v1.0.2 26-12-2025: added flag useGouraud, note that when this flag is true, anti-alias is not working due to PixelWriter
+ * v1.0.3 18-10-2026: Gouraud shading also for polygons clipped by the near plane
+ *        18-10-2026: Gouraud shading uses simple3d.Rasterizer, the frame is transferred with a single setPixels() call
+ *        18-10-2026: added flag useDepthBuffer for perspective-correct Gouraud shading with depth buffer
+ *        18-10-2026: textured polygons are drawn with textures when useGouraud is true
+ *        18-10-2026: Gouraud colors include fog of the engine
+ *        18-10-2026: textures are decoded by ImageIOTextureLoader
+ *        18-10-2026: fog is applied also to textured polygons
  */
 
 public class Scene3DFX extends Application {
 
 	private final static boolean useGouraud = false;
+	private final static boolean useDepthBuffer = true;//used only if useGouraud is true, polygons are drawn front to back
 
     private final static int WIDTH = 1000;
     private final static int HEIGHT = 500;
@@ -87,6 +96,8 @@ public class Scene3DFX extends Application {
 
 	private Engine3D engine;
     private Canvas canvas;
+	private Rasterizer rasterizer;// frame buffer used for Gouraud shading
+	private WritableImage image;
 
 	// Statistics
 	private final float[] timings = {-1, 0}; //min and max rendering time in ms
@@ -97,6 +108,7 @@ public class Scene3DFX extends Application {
     public void start(Stage primaryStage) {
 		List<String> args = getParameters().getRaw();
 
+		TextureCache.setLoader(new ImageIOTextureLoader());
 		engine = new Engine3D(print_statistics);
 		if (args.size() > 0) {
 			try	{
@@ -160,6 +172,30 @@ public class Scene3DFX extends Application {
 		int height = (int) canvas.getHeight();
 		int width = (int) canvas.getWidth();
 
+		if (useGouraud)
+			renderGouraud(gc, width, height);
+		else renderFlat(gc, width, height);
+
+		if (print_statistics) {
+			float delta_ms = (System.nanoTime() - t0) / 1000000f;
+			acc_render_time += delta_ms; n_frames++;
+			if (timings[0] == -1) {//undef
+				timings[0] = delta_ms;
+				timings[1] = delta_ms;
+			} else if (delta_ms > timings[1])
+				timings[1] = delta_ms;
+			else if (delta_ms < timings[0])
+				timings[0] = delta_ms;
+
+			System.out.println("rendering time, min = " + timings[0] + " ms, current = " + delta_ms + " ms, max = " + timings[1] + " ms");
+			System.out.println("number of frames = " + n_frames + " average rendering time = " + acc_render_time / n_frames + " ms");
+			Vector3D cameraPos = engine.getCameraPos();
+			System.out.println("current camera position = " + cameraPos.x + ", "+ cameraPos.y + "," + cameraPos.z);
+		}
+    }
+
+	private void renderFlat(GraphicsContext gc, int width, int height) {
+
 		// Horizon line
 		int horizonY = height / 2;
 
@@ -197,83 +233,84 @@ public class Scene3DFX extends Application {
 				i++;
             }
 
-			simple3d.Color[] colors;
-			if (useGouraud && (colors = engine.getVertexShaderColor(projectedVertices, poly)) != null) {
-	// Draw filled polygon with Gouraud shaded color
-				Vertex[] vertices = new Vertex[n];
-				for (int j = 0; j < n; j++)	{
-					vertices[j] = new Vertex(xPoints[j], yPoints[j], Color.rgb(colors[j].getRed(), colors[j].getGreen(), colors[j].getBlue()));
-				}
-				gradientFillPolygon(canvas, vertices, height, width);
-			} else {
 	// Draw filled polygon with flat shaded color
-				simple3d.Color scolor = engine.getFlatShaderColor(poly);
-				Color color = Color.rgb(scolor.getRed(), scolor.getGreen(), scolor.getBlue());
-				gc.setFill(color);
-				gc.setStroke(color);
-				gc.fillPolygon(xPoints, yPoints, n);
-				gc.strokePolygon(xPoints, yPoints, n);
-			}	
+			int rgb = engine.getFlatShaderRGB(poly);
+			Color color = Color.rgb((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+			gc.setFill(color);
+			gc.setStroke(color);
+			gc.fillPolygon(xPoints, yPoints, n);
+			gc.strokePolygon(xPoints, yPoints, n);
 		});
-		if (print_statistics) {
-			float delta_ms = (System.nanoTime() - t0) / 1000000f;
-			acc_render_time += delta_ms; n_frames++;
-			if (timings[0] == -1) {//undef
-				timings[0] = delta_ms;
-				timings[1] = delta_ms;
-			} else if (delta_ms > timings[1])
-				timings[1] = delta_ms;
-			else if (delta_ms < timings[0])
-				timings[0] = delta_ms;
-
-			System.out.println("rendering time, min = " + timings[0] + " ms, current = " + delta_ms + " ms, max = " + timings[1] + " ms");
-			System.out.println("number of frames = " + n_frames + " average rendering time = " + acc_render_time / n_frames + " ms");
-			Vector3D cameraPos = engine.getCameraPos();
-			System.out.println("current camera position = " + cameraPos.x + ", "+ cameraPos.y + "," + cameraPos.z);
-		}
     }
 
-	private class Vertex {
-		double x, y;
-		Color color;
-
-		Vertex(double x, double y, Color color) {
-			this.x = x;
-			this.y = y;
-			this.color = color;
+	private void renderGouraud(GraphicsContext gc, int width, int height) {
+		if (rasterizer == null || rasterizer.getWidth() != width || rasterizer.getHeight() != height) {
+			rasterizer = new Rasterizer(width, height);
+			rasterizer.setDepthBuffer(useDepthBuffer);
+			image = new WritableImage(width, height);
 		}
-	}
+		engine.setFrontToBack(useDepthBuffer);
 
-	private static void gradientFillPolygon(Canvas canvas, Vertex[] vertices, int height, int width) {
-		PixelWriter pw = canvas.getGraphicsContext2D().getPixelWriter();
-		Vertex pivot = vertices[0];
-		for (int i = 1; i < vertices.length - 1; i++) {
-			drawTriangle(pw, pivot, vertices[i], vertices[i + 1], height, width);
-		}
-	}
-
-	private static void drawTriangle(PixelWriter pw, Vertex v0, Vertex v1, Vertex v2, int height, int width) {
-
-		int minX = (int) Math.floor(Math.min(v0.x, Math.min(v1.x, v2.x)));
-		int maxX = (int) Math.ceil(Math.max(v0.x, Math.max(v1.x, v2.x)));
-		int minY = (int) Math.floor(Math.min(v0.y, Math.min(v1.y, v2.y)));
-		int maxY = (int) Math.ceil(Math.max(v0.y, Math.max(v1.y, v2.y)));
+		// Horizon line
+		int horizonY = height / 2;
 
-		double denom = (v1.y - v2.y) * (v0.x - v2.x) + (v2.x - v1.x) * (v0.y - v2.y);
+		// Draw Ground
+		rasterizer.clear(groundColor != null ? toRGB(groundColor) : 0);
 
-		for (int y = Math.max(0, minY); y <= Math.min(maxY, height); y++) {
-			for (int x = Math.max(0, minX); x <= Math.min(maxX, width); x++) {
+        // Draw Sky with Gradient
+		if (skyColor != null) {
+			Color brighter = skyColor.deriveColor(0, 1, 1.2, 1); // Equivalent to .brighter()
+			for (int y = 0; y < horizonY; y++)
+				rasterizer.fillRect(0, y, width, 1, toRGB(skyColor.interpolate(brighter, (y + 0.5) / horizonY)));
+		}
 
-				double w1 = ((v1.y - v2.y) * (x - v2.x) + (v2.x - v1.x) * (y - v2.y)) / denom;
-				double w2 = ((v2.y - v0.y) * (x - v2.x) + (v0.x - v2.x) * (y - v2.y)) / denom;
-				double w3 = 1 - w1 - w2;
+        // Render 3D Scene via Engine
+		boolean fog = engine.getFog() != Engine3D.Fog.NONE;
+		if (fog) {
+			simple3d.Color fogColor = engine.getFogColor();
+			rasterizer.setFogColor((fogColor.getRed() << 16) | (fogColor.getGreen() << 8) | fogColor.getBlue());
+		}
+        engine.render3D(cameraYaw, (projectedVertices, poly) -> {
+            int n = projectedVertices.size();
+            double[] xPoints = new double[n];
+            double[] yPoints = new double[n];
+            double[] wPoints = new double[n];
+            int[] colors = new int[n];
+			int[] vertexRGB = engine.getVertexShaderRGB(poly);
+			Texture texture = poly.getTexture();
+			double[] uPoints = texture != null ? new double[n] : null;
+			double[] vPoints = texture != null ? new double[n] : null;
+			double[] fogFactors = texture != null && fog ? new double[n] : null;// fog of textured polygons is applied by the rasterizer
 
-				if (w1 >= 0 && w2 >= 0 && w3 >= 0) {
-					Color interpolatedColor = v0.color.interpolate(v1.color, w2 / (w1 + w2)).interpolate(v2.color, w3);
-					pw.setColor(x, y, interpolatedColor);
+			int i = 0;
+            for (Engine3D.ClippedVertex cv : projectedVertices) {
+				Vector3D v = cv.clipped;
+				// X/Y are now in NDC space (-1 to +1). Scale to screen size.
+                xPoints[i] = (v.x + 1) * 0.5 * width;
+				// Note the y-flip for screen coordinates (y-down in AWT/Swing)
+                yPoints[i] = (1.0 - v.y) * 0.5 * height;
+				wPoints[i] = v.getW();
+				colors[i] = texture != null ? cv.interpolateRGB(vertexRGB) : engine.applyFog(cv.interpolateRGB(vertexRGB), v.getW());
+				if (texture != null) {
+					uPoints[i] = cv.interpolate(poly.getU());
+					vPoints[i] = cv.interpolate(poly.getV());
+					if (fogFactors != null)
+						fogFactors[i] = engine.getFogFactor(v.getW());
 				}
-			}
-		}
+				i++;
+            }
+	// Draw filled polygon with Gouraud shaded color, textured polygons are always drawn with perspective correction
+			if (texture != null)
+				rasterizer.fillTexturedPolygon(xPoints, yPoints, wPoints, uPoints, vPoints, colors, fogFactors, n, texture);
+			else rasterizer.fillGouraudPolygon(xPoints, yPoints, useDepthBuffer ? wPoints : null, colors, n);
+		});
+		// Transfer the frame with a single operation
+		image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), rasterizer.getPixels(), 0, width);
+		gc.drawImage(image, 0, 0);
+	}
+
+	private static int toRGB(Color color) {
+		return ((int) Math.round(color.getRed() * 255) << 16) | ((int) Math.round(color.getGreen() * 255) << 8) | (int) Math.round(color.getBlue() * 255);
 	}
 
 
@@ -0,0 +1,198 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package json;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+/* JSONWriter writes JSON text directly to a Writer, without building a tree of JSONValue
+
+Output is produced in the same compact format used by JSONValue.toString(), separators are inserted automatically
+
+JSONWriter beginObject() / endObject() opens and closes a JSON object
+JSONWriter beginArray() / endArray() opens and closes a JSON array
+JSONWriter key(String key) writes the key of next member, shall be used only inside an object
+JSONWriter value(...) writes a value: String, BigDecimal, double, long, boolean or JSONValue
+JSONWriter nullValue() writes null
+*/
+final public class JSONWriter implements Closeable, Flushable {
+	private final Writer out;
+	private boolean[] first = new boolean[16];//for each open container, true until the first element is written
+	private int depth = 0;
+	private boolean afterKey = false;
+
+	public JSONWriter(Writer out) {
+		this.out = out;
+	}
+
+	public JSONWriter beginObject() throws IOException {
+		separator();
+		out.write('{');
+		push();
+		return this;
+	}
+
+	public JSONWriter endObject() throws IOException {
+		pop();
+		out.write('}');
+		return this;
+	}
+
+	public JSONWriter beginArray() throws IOException {
+		separator();
+		out.write('[');
+		push();
+		return this;
+	}
+
+	public JSONWriter endArray() throws IOException {
+		pop();
+		out.write(']');
+		return this;
+	}
+
+	public JSONWriter key(String key) throws IOException {
+		if (depth == 0 || afterKey) throw new IllegalStateException("key not allowed here: " + key);
+		separator();
+		writeString(key);
+		out.write(':');
+		afterKey = true;
+		return this;
+	}
+
+	public JSONWriter value(String str) throws IOException {
+		if (str == null)
+			return nullValue();
+		separator();
+		writeString(str);
+		return this;
+	}
+
+	public JSONWriter value(BigDecimal val) throws IOException {
+		if (val == null)
+			return nullValue();
+		separator();
+		out.write(val.toString());
+		return this;
+	}
+
+	public JSONWriter value(double val) throws IOException {
+		return value(BigDecimal.valueOf(val));//same representation used by JSONNumber
+	}
+
+	public JSONWriter value(long val) throws IOException {
+		separator();
+		out.write(Long.toString(val));
+		return this;
+	}
+
+	public JSONWriter value(boolean val) throws IOException {
+		separator();
+		out.write(val ? "true" : "false");
+		return this;
+	}
+
+	public JSONWriter value(JSONValue val) throws IOException {//writes an existing JSONValue as it is
+		if (val == null)
+			return nullValue();
+		separator();
+		out.write(val.toString());
+		return this;
+	}
+
+	public JSONWriter nullValue() throws IOException {
+		separator();
+		out.write("null");
+		return this;
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void separator() throws IOException {
+		if (afterKey)
+			afterKey = false;
+		else if (depth > 0) {
+			if (first[depth - 1])
+				first[depth - 1] = false;
+			else out.write(',');
+		}
+	}
+
+	private void push() {
+		if (depth == first.length)
+			first = Arrays.copyOf(first, depth * 2);
+		first[depth++] = true;
+	}
+
+	private void pop() {
+		if (depth == 0 || afterKey) throw new IllegalStateException("unbalanced JSON output");
+		depth--;
+	}
+
+	private void writeString(String str) throws IOException {//same escaping rules of JSONString
+		out.write('"');
+		int length = str.length();
+		for (int i = 0; i < length; i++) {
+			char ch = str.charAt(i);
+			switch(ch) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\b':
+					out.write("\\b");
+					break;
+				case '\f':
+					out.write("\\f");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					if (ch >= 0x20)
+						out.write(ch);
+					else {
+						out.write(String.format("\\u%04x", (int) ch));
+					}
+			}
+		}
+		out.write('"');
+	}
+}
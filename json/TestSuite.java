@@ -42,6 +42,10 @@ final public class TestSuite {
 		JSONValue run(String str) throws JSONException;
 	}
 
+	interface WriterCase {
+		void run(JSONWriter writer) throws IOException;
+	}
+
 	static class testReport {
 		int n_tests;
 		int n_failed;
@@ -137,6 +141,16 @@ final public class TestSuite {
 			check_negative_test(453, tr, "{\"a\":1,\"a\":2.1,\"c\":3e2}", "parsing error due duplicate key: \"a\"", JSONObject::new);
 			check_negative_test(454, tr, "{", "parsing error, expecting }", JSONObject::new);
 
+	//testing JSONWriter
+			check_test(500, tr, "[]", (s) -> write(s, (w) -> w.beginArray().endArray()));
+			check_test(501, tr, "{}", (s) -> write(s, (w) -> w.beginObject().endObject()));
+			check_test(502, tr, "[1,2.5,-3E+2,true,null,\"abcd\"]", (s) -> write(s, (w) -> w.beginArray().value(1).value(2.5).value(new BigDecimal("-3E+2")).value(true).nullValue().value("abcd").endArray()));
+			check_test(503, tr, "{\"a\":1,\"b\":[[],[1,2]],\"c\":{\"d\":{}}}", (s) -> write(s, (w) -> w.beginObject().key("a").value(1).key("b").beginArray().beginArray().endArray().beginArray().value(1).value(2).endArray().endArray()
+				.key("c").beginObject().key("d").beginObject().endObject().endObject().endObject()));
+			check_test(504, tr, "[\"abcd\\\"\\\\\\b\\f\\n\\r\\tefgh\"]", (s) -> write(s, (w) -> w.beginArray().value("abcd\"\\\b\f\n\r\tefgh").endArray()));
+			JSONArray ja = new JSONArray("[1,true]"); JSONObject jo = new JSONObject("{\"c\":null}");
+			check_test(505, tr, "{\"a\":[1,true],\"b\":{\"c\":null}}", (s) -> write(s, (w) -> w.beginObject().key("a").value(ja).key("b").value(jo).endObject()));
+
 	//testing JSON parser
 			check_test(1000, tr, "-1234.5678", JSONValue::parse);
 			check_test(1001, tr, "1234", new JSONNumber("1234"), JSONValue::parse);
@@ -190,6 +204,22 @@ check_test(): check test case, note that 'expected' may be String or JSONValue
 		}
 	}
 
+/*
+write(): run writer test case, check JSONWriter output against expected string and parse it back
+*/
+	public static JSONValue write(String expected, WriterCase writercase) throws JSONException {
+		StringWriter sw = new StringWriter();
+		try (JSONWriter writer = new JSONWriter(sw)) {
+			writercase.run(writer);
+		} catch (IOException | RuntimeException ex) {
+			throw new JSONException(ex);
+		}
+		String result = sw.toString();
+		if (!result.equals(expected))
+			throw new JSONException("writer output mismatch: " + result);
+		return JSONValue.parse(result);
+	}
+
 /*
 check_test_toJava(): check test case, note that 'expected' shall be one of the following Java objects: Boolean, String, ArrayList<Object>, LinkedHashMap<String, Object>
 */
@@ -29,11 +29,18 @@ import java.util.List;
 /**
  * BSPNode is a node in the Binary Space Partitioning tree.
  * v1.0 12-12-2025: first release
+ * v1.0.3 18-10-2026: bounding box of subtrees, used to skip subtrees beyond the far plane during traversal
+ *        18-10-2026: objects with levels of detail placed in the cells of the tree
+ *        18-10-2026: polygons can be inserted after the tree is built, added method crosses() for objects
  */
 public class BSPNode {
 	Polyface3D splitter;// The polygon defining the plane
 	BSPNode front;      // Polygons in front of the splitter
 	BSPNode back;       // Polygons behind the splitter
+	final double[] bounds = new double[6];// Bounding box of all polygons and objects in the subtree: minX, minY, minZ, maxX, maxY, maxZ
+	List<LODObject> frontObjects;// Objects in front of the splitter, used only if front is null
+	List<LODObject> backObjects;// Objects behind the splitter, used only if back is null
+	List<LODObject> spanningObjects;// Objects crossing the plane of the splitter, drawn after the splitter
 
 	// --- Hyperparameters for the Cost Function ---
 	// Adjust these weights to prioritize tree balance or minimize polygon splits.
@@ -83,6 +90,13 @@ public class BSPNode {
 	 * Builds the BSP tree recursively from a list of polygons.
 	 */
 	public static BSPNode build(List<Polyface3D> list) {
+		return build(list, null);
+	}
+
+	/**
+	 * Builds the BSP tree recursively from a list of polygons, vertices created by splitting polygons with shared vertices are appended to vertexPool.
+	 */
+	public static BSPNode build(List<Polyface3D> list, List<Vector3D> vertexPool) {
 		if (list == null || list.isEmpty()) {
 			return null;
 		}
@@ -133,36 +147,218 @@ public class BSPNode {
 					backList.add(poly);
 				}
 			} else { // SPANNING - REQUIRES SPLIT
-				poly.split(splitter, frontList, backList);
+				poly.split(splitter, frontList, backList, vertexPool);
 			}
 		}
 
 		// --- 3. Recursively build subtrees ---
-		node.front = build(frontList);
-		node.back = build(backList);
+		node.front = build(frontList, vertexPool);
+		node.back = build(backList, vertexPool);
+		node.computeBounds();
 
 		return node;
 	}
 
+	// bounding box of splitter and subtrees, subtrees shall be already built
+	private void computeBounds() {
+		bounds[0] = bounds[1] = bounds[2] = Double.POSITIVE_INFINITY;
+		bounds[3] = bounds[4] = bounds[5] = Double.NEGATIVE_INFINITY;
+		for (Vector3D v : splitter.vertices) {
+			bounds[0] = Math.min(bounds[0], v.x);
+			bounds[1] = Math.min(bounds[1], v.y);
+			bounds[2] = Math.min(bounds[2], v.z);
+			bounds[3] = Math.max(bounds[3], v.x);
+			bounds[4] = Math.max(bounds[4], v.y);
+			bounds[5] = Math.max(bounds[5], v.z);
+		}
+		for (BSPNode child : new BSPNode[] {front, back})
+			if (child != null)
+				for (int i = 0; i < 3; i++) {
+					bounds[i] = Math.min(bounds[i], child.bounds[i]);
+					bounds[i + 3] = Math.max(bounds[i + 3], child.bounds[i + 3]);
+				}
+	}
+
+	/**
+	 * Inserts a polygon in the tree after it is built: the polygon is split by the planes it crosses and each piece becomes a new leaf.
+	 * The tree is not balanced again, so it is intended for a small number of polygons
+	 */
+	public void insert(Polyface3D poly, List<Vector3D> vertexPool) {
+		for (Vector3D v : poly.vertices) {
+			bounds[0] = Math.min(bounds[0], v.x);
+			bounds[1] = Math.min(bounds[1], v.y);
+			bounds[2] = Math.min(bounds[2], v.z);
+			bounds[3] = Math.max(bounds[3], v.x);
+			bounds[4] = Math.max(bounds[4], v.y);
+			bounds[5] = Math.max(bounds[5], v.z);
+		}
+		int classification = poly.classify(splitter);
+		if (classification == Polyface3D.SPANNING) {
+			List<Polyface3D> frontList = new ArrayList<>();
+			List<Polyface3D> backList = new ArrayList<>();
+			poly.split(splitter, frontList, backList, vertexPool);
+			for (Polyface3D piece : frontList)
+				insertFront(piece, vertexPool);
+			for (Polyface3D piece : backList)
+				insertBack(piece, vertexPool);
+		} else if (classification == Polyface3D.FRONT || (classification == Polyface3D.COPLANAR && poly.normal.dot(splitter.normal) > 0))
+			insertFront(poly, vertexPool);
+		else insertBack(poly, vertexPool);
+	}
+
+	private void insertFront(Polyface3D poly, List<Vector3D> vertexPool) {
+		if (front != null)
+			front.insert(poly, vertexPool);
+		else {
+			front = createLeaf(poly);
+			if (frontObjects != null)// objects of the cell are moved to the new leaf
+				for (LODObject object : frontObjects)
+					front.insert(object);
+			frontObjects = null;
+		}
+	}
+
+	private void insertBack(Polyface3D poly, List<Vector3D> vertexPool) {
+		if (back != null)
+			back.insert(poly, vertexPool);
+		else {
+			back = createLeaf(poly);
+			if (backObjects != null)// objects of the cell are moved to the new leaf
+				for (LODObject object : backObjects)
+					back.insert(object);
+			backObjects = null;
+		}
+	}
+
+	private static BSPNode createLeaf(Polyface3D splitter) {
+		BSPNode node = new BSPNode();
+		node.splitter = splitter;
+		node.computeBounds();
+		return node;
+	}
+
+	/**
+	 * Returns true if the bounding sphere of object crosses the plane of a node on its path to a cell of the tree,
+	 * such object would be placed in that node by insert() and its sorting with the polygons of the subtrees is not guaranteed
+	 */
+	public boolean crosses(LODObject object) {
+		double distance = distance(object);
+		if (distance > object.radius)
+			return front != null && front.crosses(object);
+		if (distance < -object.radius)
+			return back != null && back.crosses(object);
+		return true;
+	}
+
+	//signed distance of the center of object from the plane of splitter
+	private double distance(LODObject object) {
+		Vector3D p = splitter.vertices[0];
+		Vector3D n = splitter.normal;
+		return (object.x - p.x) * n.x + (object.y - p.y) * n.y + (object.z - p.z) * n.z;
+	}
+
+	/**
+	 * Inserts an object in the cell of the tree containing its bounding sphere, or in the node whose plane crosses the sphere
+	 */
+	public void insert(LODObject object) {
+		for (int i = 0; i < 3; i++) {
+			double c = i == 0 ? object.x : i == 1 ? object.y : object.z;
+			bounds[i] = Math.min(bounds[i], c - object.radius);
+			bounds[i + 3] = Math.max(bounds[i + 3], c + object.radius);
+		}
+		double distance = distance(object);
+		if (distance > object.radius) {
+			if (front != null)
+				front.insert(object);
+			else frontObjects = add(frontObjects, object);
+		} else if (distance < -object.radius) {
+			if (back != null)
+				back.insert(object);
+			else backObjects = add(backObjects, object);
+		} else spanningObjects = add(spanningObjects, object);
+	}
+
+	private static List<LODObject> add(List<LODObject> objects, LODObject object) {
+		if (objects == null)
+			objects = new ArrayList<>(1);
+		objects.add(object);
+		return objects;
+	}
+
+	//adds objects in back to front order
+	private static void addObjects(List<LODObject> objects, Vector3D cameraPos, Vector3D viewDir, double maxDistance, double lodScale, List<Polyface3D> drawList) {
+		if (objects == null)
+			return;
+		LODObject.sort(objects, cameraPos);
+		for (LODObject object : objects)
+			object.addPolygons(cameraPos, viewDir, maxDistance, lodScale, drawList);
+	}
+
+	/**
+	 * Returns the minimum distance along viewDir (unit vector) from cameraPos of the bounding box of the subtree
+	 */
+	private double minDepth(Vector3D cameraPos, Vector3D viewDir) {
+		double dx = Math.min(viewDir.x * (bounds[0] - cameraPos.x), viewDir.x * (bounds[3] - cameraPos.x));
+		double dy = Math.min(viewDir.y * (bounds[1] - cameraPos.y), viewDir.y * (bounds[4] - cameraPos.y));
+		double dz = Math.min(viewDir.z * (bounds[2] - cameraPos.z), viewDir.z * (bounds[5] - cameraPos.z));
+		return dx + dy + dz;
+	}
+
+	/**
+	 * Adds all polygons of the tree to the list, in no particular order.
+	 */
+	public void getPolygons(List<Polyface3D> list) {
+		list.add(splitter);
+		if (front != null) front.getPolygons(list);
+		if (back != null) back.getPolygons(list);
+	}
+
 	/**
 	 * Traverses the tree and adds polygons to the drawing list in back-to-front order.
 	 * @param cameraPos The position of the camera.
 	 * @param drawList The list to populate with sorted polygons.
 	 */
 	public void traverse(Vector3D cameraPos, List<Polyface3D> drawList) {
+		traverse(cameraPos, null, Double.POSITIVE_INFINITY, drawList);
+	}
+
+	/**
+	 * Traverses the tree and adds polygons to the drawing list in back-to-front order, skipping subtrees beyond the far plane.
+	 * @param cameraPos The position of the camera.
+	 * @param viewDir The view direction of the camera (unit vector), it can be null if maxDistance is infinite.
+	 * @param maxDistance The distance of the far plane from the camera along viewDir.
+	 * @param drawList The list to populate with sorted polygons.
+	 */
+	public void traverse(Vector3D cameraPos, Vector3D viewDir, double maxDistance, List<Polyface3D> drawList) {
+		traverse(cameraPos, viewDir, maxDistance, 1, drawList);
+	}
+
+	/**
+	 * Traverses the tree and adds polygons to the drawing list in back-to-front order, skipping subtrees beyond the far plane.
+	 * Objects with levels of detail are added with the level selected by lodScale, see LODObject.selectLevel().
+	 */
+	public void traverse(Vector3D cameraPos, Vector3D viewDir, double maxDistance, double lodScale, List<Polyface3D> drawList) {
+		if (maxDistance != Double.POSITIVE_INFINITY && minDepth(cameraPos, viewDir) > maxDistance)
+			return;// the whole subtree is beyond the far plane
 		if (splitter != null) {
 		// Check camera position relative to the splitter plane.
 			Vector3D cameraRay = cameraPos.subtract(splitter.vertices[0], new Vector3D(0, 0, 0)); // cameraRay = cameraPos - splitterPoint
 			double distance = cameraRay.dot(splitter.normal);
 
 			if (distance > 0) { // Camera is in front of the splitter -> Draw back, draw splitter, draw front
-				if (back != null) back.traverse(cameraPos, drawList);
+				if (back != null) back.traverse(cameraPos, viewDir, maxDistance, lodScale, drawList);
+				else addObjects(backObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
 				drawList.add(splitter);
-				if (front != null) front.traverse(cameraPos, drawList);
+				addObjects(spanningObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
+				if (front != null) front.traverse(cameraPos, viewDir, maxDistance, lodScale, drawList);
+				else addObjects(frontObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
 			} else { // Camera is behind the splitter -> Draw front, draw splitter, draw back
-				if (front != null) front.traverse(cameraPos, drawList);
+				if (front != null) front.traverse(cameraPos, viewDir, maxDistance, lodScale, drawList);
+				else addObjects(frontObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
 				drawList.add(splitter);
-				if (back != null) back.traverse(cameraPos, drawList);
+				addObjects(spanningObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
+				if (back != null) back.traverse(cameraPos, viewDir, maxDistance, lodScale, drawList);
+				else addObjects(backObjects, cameraPos, viewDir, maxDistance, lodScale, drawList);
 			}
 		}
 	}
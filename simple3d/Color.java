@@ -23,9 +23,12 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
+
 import json.JSONValue;
 import json.JSONString;
 import json.JSONException;
+import json.JSONWriter;
 /**
  * Color (r,g,b)
  */
@@ -103,4 +106,8 @@ public class Color implements Dumpable {
 	public JSONValue save() {
 		return new JSONString(toString());
 	}
+
+	public void save(JSONWriter out) throws IOException {
+		out.value(toString());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ConvexDecomposer splits concave polygons of meshes into convex polygons, the result is computed once and cached by Mesh.getConvexPolygons().
+ * The polygon is projected on the coordinate plane most parallel to it and triangulated by ear clipping,
+ * degenerate vertices of outlines (spikes going back along the previous edge) are dropped.
+ * Then adjacent triangles are merged back into convex polygons by PolygonMerger (Hertel-Mehlhorn), so a concave polygon
+ * with r reflex vertices is split in few pieces. The pieces keep the vertices, color and texture coordinates of the polygon.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: polygons of the mesh are not modified, convex polygons are returned in a new list
+ */
+class ConvexDecomposer {
+	private final static double EPSILON = 1e-9;// tolerance of areas in projected coordinates
+
+	private ConvexDecomposer() {}
+
+	/**
+     * Returns the polygons of mesh with concave polygons replaced by convex polygons, in the same order.
+	 * The polygons of mesh are not modified, if they are all convex the list of polygons of mesh is returned
+	 */
+	static List<Polygon3D> decompose(Mesh mesh) {
+		List<Polygon3D> polygons = mesh.polygons;
+		List<Polygon3D> result = null;// created at the first concave polygon
+		for (int p = 0; p < polygons.size(); p++) {
+			Polygon3D polygon = polygons.get(p);
+			double[][] points = project(mesh, polygon);
+			if (isConvex(points[0], points[1])) {
+				if (result != null)
+					result.add(polygon);
+				continue;
+			}
+			if (result == null)
+				result = new ArrayList<>(polygons.subList(0, p));
+			result.addAll(decompose(mesh, polygon, points[0], points[1]));
+		}
+		return result == null ? polygons : result;
+	}
+
+	//returns x and y coordinates of polygon projected on the coordinate plane most parallel to it, oriented counterclockwise
+	private static double[][] project(Mesh mesh, Polygon3D polygon) {
+		Integer[] vertex_indexes = polygon.vertex_indexes;
+		int n = vertex_indexes.length;
+		Vector3D[] vertices = new Vector3D[n];
+		double nx = 0, ny = 0, nz = 0;// Newell's method
+		for (int i = 0; i < n; i++)
+			vertices[i] = mesh.getVertex(vertex_indexes[i]);
+		for (int i = 0; i < n; i++) {
+			Vector3D a = vertices[i], b = vertices[(i + 1) % n];
+			nx += (a.y - b.y) * (a.z + b.z);
+			ny += (a.z - b.z) * (a.x + b.x);
+			nz += (a.x - b.x) * (a.y + b.y);
+		}
+		double[] x = new double[n], y = new double[n];
+		double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+		for (int i = 0; i < n; i++) {
+			Vector3D v = vertices[i];
+			if (az >= ax && az >= ay) {// drop z
+				x[i] = v.x;
+				y[i] = nz > 0 ? v.y : -v.y;
+			} else if (ay >= ax) {// drop y
+				x[i] = v.z;
+				y[i] = ny > 0 ? v.x : -v.x;
+			} else {// drop x
+				x[i] = v.y;
+				y[i] = nx > 0 ? v.z : -v.z;
+			}
+		}
+		return new double[][] {x, y};
+	}
+
+	//collinear corners are accepted, as in Polyface3D.isConvex()
+	private static boolean isConvex(double[] x, double[] y) {
+		int n = x.length;
+		for (int i = 0; i < n; i++)
+			if (cross(x, y, i, (i + 1) % n, (i + 2) % n) < -EPSILON)
+				return false;
+		return true;
+	}
+
+	private static List<Polygon3D> decompose(Mesh mesh, Polygon3D polygon, double[] x, double[] y) {
+		int n = x.length;
+		// Ear clipping over a circular list of corners
+		int[] next = new int[n], prev = new int[n];
+		for (int i = 0; i < n; i++) {
+			next[i] = (i + 1) % n;
+			prev[i] = (i + n - 1) % n;
+		}
+		List<int[]> triangles = new ArrayList<>();// corners of triangles
+		int remaining = n, current = 0, failures = 0;
+		while (remaining > 3 && failures < remaining) {
+			int a = prev[current], b = current, c = next[current];
+			double area = cross(x, y, a, b, c);
+			boolean spike = Math.abs(area) <= EPSILON && (x[b] - x[a]) * (x[c] - x[b]) + (y[b] - y[a]) * (y[c] - y[b]) <= 0;
+			if (spike || (area > EPSILON && isEar(x, y, next, a, b, c))) {
+				if (!spike)
+					triangles.add(new int[] {a, b, c});
+				next[a] = c;
+				prev[c] = a;
+				remaining--;
+				failures = 0;
+				current = a;// the corner before the ear may have become an ear
+			} else {
+				current = c;
+				failures++;
+			}
+		}
+		if (remaining >= 3) {// last triangle, or fan of remaining corners if no ear is found because of rounding errors
+			int first = current;
+			for (int b = next[first]; next[b] != first; b = next[b])
+				if (cross(x, y, first, b, next[b]) > EPSILON)
+					triangles.add(new int[] {first, b, next[b]});
+		}
+
+		// Triangles merged into convex pieces by removing diagonals
+		List<Vector3D> vertexPool = new ArrayList<>(mesh.getVertexCount());
+		for (int i = 0; i < mesh.getVertexCount(); i++)
+			vertexPool.add(mesh.getVertex(i));
+		List<Polyface3D> faces = new ArrayList<>(triangles.size());
+		for (int[] triangle : triangles) {
+			int[] indexes = new int[3];
+			Vector3D[] vertices = new Vector3D[3];
+			for (int k = 0; k < 3; k++) {
+				indexes[k] = polygon.vertex_indexes[triangle[k]];
+				vertices[k] = vertexPool.get(indexes[k]);
+			}
+			faces.add(new Polyface3D(Color.WHITE, vertices, indexes));
+		}
+		faces = PolygonMerger.merge(faces, vertexPool);
+
+		List<Polygon3D> pieces = new ArrayList<>(faces.size());
+		for (Polyface3D face : faces) {
+			int m = face.indexes.length;
+			Integer[] vertex_indexes = new Integer[m];
+			double[] u = polygon.u == null ? null : new double[m], v = polygon.u == null ? null : new double[m];
+			for (int k = 0; k < m; k++) {
+				vertex_indexes[k] = face.indexes[k];
+				if (u != null) {// texture coordinates of the first corner of polygon using the vertex
+					int corner = Arrays.asList(polygon.vertex_indexes).indexOf(face.indexes[k]);
+					u[k] = polygon.u[corner];
+					v[k] = polygon.v[corner];
+				}
+			}
+			Polygon3D piece = new Polygon3D(mesh, vertex_indexes);
+			piece.colorIndex = polygon.colorIndex;
+			piece.u = u;
+			piece.v = v;
+			pieces.add(piece);
+		}
+		return pieces;
+	}
+
+	//corner b is an ear if no other corner is inside triangle a, b, c
+	private static boolean isEar(double[] x, double[] y, int[] next, int a, int b, int c) {
+		for (int p = next[c]; p != a; p = next[p]) {
+			if ((x[p] == x[a] && y[p] == y[a]) || (x[p] == x[b] && y[p] == y[b]) || (x[p] == x[c] && y[p] == y[c]))
+				continue;// corner repeated in the outline
+			if (cross(x, y, a, b, p) >= -EPSILON && cross(x, y, b, c, p) >= -EPSILON && cross(x, y, c, a, p) >= -EPSILON)
+				return false;
+		}
+		return true;
+	}
+
+	private static double cross(double[] x, double[] y, int a, int b, int c) {
+		return (x[b] - x[a]) * (y[c] - y[b]) - (y[b] - y[a]) * (x[c] - x[b]);
+	}
+}
@@ -1,8 +1,12 @@
 package simple3d;
 
+import java.io.IOException;
+
 import json.JSONValue;
+import json.JSONWriter;
 
 interface Dumpable {
 	void load(JSONValue data);
 	JSONValue save();
+	void save(JSONWriter out) throws IOException;//streaming version of save()
 }
\ No newline at end of file
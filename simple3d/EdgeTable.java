@@ -0,0 +1,144 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.Arrays;
+
+/**
+ * EdgeTable maps the directed edges of polygons to an int value, like the number of occurrences of the edge or the polygon using it.
+ * An edge from vertex a to vertex b is stored as the long key (a << 32) | b.
+ * It is an open addressing hash table with linear probing over primitive arrays, so edges are not boxed
+ * and vertex indexes are not limited by the overflow of int keys.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: values can be set with put()
+ */
+final class EdgeTable {
+	private final static long EMPTY = -1;// not a valid key, vertex indexes are not negative
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	EdgeTable(int expectedEdges) {
+		int capacity = 16;
+		while (capacity < expectedEdges * 2)// load factor at most 0.5
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	static long key(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	static int from(long key) {
+		return (int) (key >>> 32);
+	}
+
+	static int to(long key) {
+		return (int) key;
+	}
+
+	/**
+     * Adds one occurrence of directed edge from-to, returns the number of occurrences including this one
+	 */
+	int add(int from, int to) {
+		return ++values[insert(key(from, to))];
+	}
+
+	/**
+     * Sets the value of directed edge from-to
+	 */
+	void put(int from, int to, int value) {
+		values[insert(key(from, to))] = value;
+	}
+
+	/**
+     * Returns the number of occurrences or the value of directed edge from-to, 0 if the edge is not in the table
+	 */
+	int count(int from, int to) {
+		int slot = find(key(from, to));
+		return keys[slot] == EMPTY ? 0 : values[slot];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+     * Returns the keys of distinct edges, in no particular order
+	 */
+	long[] keys() {
+		long[] result = new long[size];
+		int n = 0;
+		for (long key : keys)
+			if (key != EMPTY)
+				result[n++] = key;
+		return result;
+	}
+
+	//returns the slot of key, the key is added with value 0 if not present
+	private int insert(long key) {
+		int slot = find(key);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			if (++size * 2 > keys.length) {
+				grow();
+				slot = find(key);
+			}
+		}
+		return slot;
+	}
+
+	private int find(long key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private static int hash(long key) {//mix the bits of both vertex indexes
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldKeys[i] != EMPTY) {
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+	}
+}
@@ -24,18 +24,24 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 package simple3d;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,20 +52,53 @@ import json.*;
 /**
  * Engine3D
  * This class implements a simple and fast software 3D engine.
- * It features perspective projection, basic flat shading, only one light. Requires aspect ratio 2:1
- * Unsupported: reflections, textures, shadows, multiple lights, any other advanced 3d feature. 
+ * It features perspective projection, basic flat shading, multiple point and directional lights, optional static shadows, textures, distance fog. Requires aspect ratio 2:1
+ * Unsupported: reflections, any other advanced 3d feature. 
  * BSP algorithm is not optimal in case of moving objects.
- * CameraPitch is not implemented. Far objects are always processed like any objects instead of being skipped.
+ * CameraPitch is not implemented. Far objects are processed like any objects, unless a maximum view distance is set.
  *
  * v1.0 12-12-2025: first release
  * v1.0.1 17-12-2025: added shapeArguments
  *        22-12-2025: removed dependency on screen size
  * v1.0.2 26-12-2025: added methods getFlatShaderColor() and getVertexShaderColor()
+ * v1.0.3 18-10-2026: exportFile() streams json content via JSONWriter
+ *        18-10-2026: meshes can be loaded from library files using "source"
+ *        18-10-2026: meshes with identical geometry are merged at import
+ *        18-10-2026: optional compact storage of vertices for imported meshes
+ *        18-10-2026: polygons share world vertices, each vertex is projected once per frame
+ *        18-10-2026: added method getFlatShaderRGB() using a cache of flat shading colors
+ *        18-10-2026: multiple lights, evaluated by a batched lighting stage
+ *        18-10-2026: Gouraud shading uses smooth vertex normals, computed once per mesh
+ *        18-10-2026: clipped vertices carry interpolation weights, Gouraud shading supports vertices interpolated by near-plane clipping
+ *        18-10-2026: front to back order and dynamic nodes, for renderers using a depth buffer
+ *        18-10-2026: optional static shadows computed in setupScene
+ *        18-10-2026: textured polygons, textures are loaded by TextureCache
+ *        18-10-2026: optional maximum view distance (far plane) and linear or exponential fog
+ *        18-10-2026: optional levels of detail selected per node by projected size
+ *        18-10-2026: getInfo() checks each mesh once, results of checks are cached by meshes
+ *        18-10-2026: validation of imported meshes can be disabled for trusted files
+ *        18-10-2026: added method decimateMeshes() to reduce polygons of meshes
+ *        18-10-2026: optional merging of adjacent coplanar polygons before building the BSP tree
+ *        18-10-2026: concave polygons are split by meshes at load time, removed check of convex polygons in setupScene
+ *        18-10-2026: optional instancing of meshes shared by several nodes
+ *        18-10-2026: optional vertex stage in float precision
+ *        18-10-2026: deduplication of meshes keeps all mesh ids
+ *        18-10-2026: getInfo() reports unknown levels of detail
+ *        18-10-2026: convex polygons of meshes are used for rendering, authored polygons are exported
+ *        18-10-2026: setFloatPrecision() documents the retained double vertices, checked by TestSuite
+ *        18-10-2026: polygon merging keeps the image, it is applied only with directional lights and without fog
+ *        18-10-2026: getInfo(false) does not count unconnected parts
  */
 
 public class Engine3D {
 	public final static String format = "simple3D.1";
 
+	public enum Fog {
+		NONE,
+		LINEAR,
+		EXPONENTIAL,
+	}
+
 	public enum Direction {
 		UP,
 		DOWN,
@@ -69,12 +108,23 @@ public class Engine3D {
 	private final boolean print_statistics;
 
 	private final ArrayList<Node> sceneNodes = new ArrayList<>(); //Objects
-	private final HashMap<String, Mesh> meshes = new HashMap<>(); //Meshes
-	private Light3D light;// Light Source (used for flat shading)
+	private final LinkedHashMap<String, Mesh> meshes = new LinkedHashMap<>(); //Meshes, in order of insertion
+	private final ArrayList<Light3D> lights = new ArrayList<>();// Light Sources
+	private int lightVersion = 1;// incremented when lights are changed, invalidates cached shading colors
     private Vector3D cameraPos;// Camera Position or POV
 
 	private BSPNode sceneBspTree; //Binary Space Partitioning (BSP) Tree
 
+	// Vertex stage: world vertices shared by polygons, projected at most once per frame
+	private Vector3D[] sceneVertices = new Vector3D[0];
+	private double[] projectedVertices = new double[0];//clip-space x, y, z, w of each scene vertex
+	private int[] projectedFrame = new int[0];//frame number of last projection of each scene vertex
+	private int frame = 0;
+	private boolean floatPrecision = false;// vertex stage in float precision
+	private float[] sceneVertexData;// x, y, z of each scene vertex packed in float precision (w is 1), null if the vertex stage uses double precision
+	private float[] projectedData;// clip-space x, y, z, w of each scene vertex in float precision
+	private final float[] viewProjData = new float[16];// matViewProj in float precision, row by row
+
 	// Pre-allocated objects for performance optimization
 	private final Vector3D lookDir = new Vector3D(0, 0, 1);
 	private final Vector3D target = new Vector3D(0, 0, 0);
@@ -87,18 +137,201 @@ public class Engine3D {
 
 	private final Vector3D cameraRay = new Vector3D(0, 0, 0);
 	private final Vector3D polyCenter = new Vector3D(0, 0, 0);
-	private final Vector3D lightDir = new Vector3D(0, 0, 0);
+
+	// Lighting stage: centers and normals of scene polygons in primitive arrays
+	private Polyface3D[] scenePolygons = new Polyface3D[0];
+	private double[] centerX, centerY, centerZ;
+	private double[] normalX, normalY, normalZ;
+	private int litVersion = 0;// light version used by last lighting stage
+
+	private final static double AMBIENT = 0.1;
+	private boolean frontToBack = false;// order of polygons in render3D()
+	private boolean shadows = false;// shadows of static lights computed by setupScene
+	private int shadowVersion = 0;// light version used to compute shadows, shadows are ignored if lights are changed
+	private double smoothingAngle = 60;// maximum angle in degrees between polygons sharing a smooth vertex normal, 0 means no smooth normals
 
 	private final static double Z_NEAR = 0.1;
+	private double viewDistance = Double.POSITIVE_INFINITY;// far plane, distance along the view direction
+	private Fog fog = Fog.NONE;
+	private boolean levelOfDetail = false;// nodes with levels of detail are placed in the BSP tree as objects
+	private double lodThreshold = 0.05;// projected radius (fraction of half screen height) below which level 1 is used
+	private List<LODObject> sceneObjects = new ArrayList<>();// objects with levels of detail and instances of meshes
+	private boolean instancing = false;// nodes sharing a mesh are drawn as instances of the mesh
+	private final static int MIN_INSTANCE_POLYGONS = 8;// smaller meshes are copied, like walls and roads made of few large polygons
+	private Color fogColor = Color.WHITE;
+	private double fogStart, fogEnd, fogDensity;
 
 	private String filename = "notitle.json.gz";
+	private boolean deduplicate = true;
+	private boolean validateMeshes = true;
+	private boolean polygonMerging = false;
+	private Mesh.Storage vertexStorage = Mesh.Storage.DOUBLE;
+	private int compactThreshold = 0;
 
 	public Engine3D(boolean print_statistics) {
 		this.print_statistics = print_statistics;
 	}
 
+	//set light as the only light source
 	public void setLight(Light3D light) {
-		this.light = light;
+		lights.clear();
+		lights.add(light);
+		lightVersion++;
+	}
+
+	public void addLight(Light3D light) {
+		lights.add(light);
+		lightVersion++;
+	}
+
+	public void clearLights() {
+		lights.clear();
+		lightVersion++;
+	}
+
+	public List<Light3D> getLights() {
+		return Collections.unmodifiableList(lights);
+	}
+
+	/**
+     * Sets maximum angle in degrees between polygons sharing a smooth vertex normal in Gouraud shading, sharper edges are kept hard.
+	 * Value 0 disables smooth normals, the polygon normal is used for all vertices. It shall be called before setupScene()
+	 */
+	public void setSmoothingAngle(double smoothingAngle) {
+		if (smoothingAngle < 0 || smoothingAngle > 180) throw new IllegalArgumentException("smoothingAngle shall be in range 0..180");
+		this.smoothingAngle = smoothingAngle;
+	}
+
+	/**
+     * Sets the order of polygons passed to the renderer: back to front (default) as required by painter's algorithm,
+	 * or front to back for renderers using a depth buffer (see Rasterizer), so that hidden pixels are rejected before shading
+	 */
+	public void setFrontToBack(boolean frontToBack) {
+		this.frontToBack = frontToBack;
+	}
+
+	/**
+     * Enables shadows, they are computed by setupScene() for the current lights and the polygons of the scene.
+	 * Shadows are ignored if lights are changed after setupScene(), nodes drawn by renderNodes() do not cast shadows
+	 */
+	public void setShadows(boolean shadows) {
+		this.shadows = shadows;
+	}
+
+	/**
+     * Enables levels of detail, used by setupScene(): nodes with native shapes sphere, cylinder, cone or with meshes having levels of detail
+	 * are not split by the BSP tree, the level of each node is selected at each frame by its projected size.
+	 * These nodes do not cast or receive static shadows
+	 */
+	public void setLevelOfDetail(boolean levelOfDetail) {
+		this.levelOfDetail = levelOfDetail;
+	}
+
+	/**
+     * Enables the vertex stage in float precision, used by setupScene(): scene vertices are packed in a float array and projected
+	 * with float arithmetic, halving the memory read and written by the vertex stage. Clipping, shading and the other stages use double precision.
+	 * Differences from the double precision stage are below 1/1000 of pixel (at 1000 pixels of width) for vertices on screen and farther than 1 from the camera,
+	 * they can reach one pixel only for vertices very near to the camera (see simple3d.TestSuite).
+	 * The double precision vertices are still kept, as polygons use them for clipping and shading: the float array is an additional copy
+	 * of 12 bytes per vertex, so the heap grows instead of shrinking, only the memory traffic of projection is reduced
+	 */
+	public void setFloatPrecision(boolean floatPrecision) {
+		this.floatPrecision = floatPrecision;
+	}
+
+	/**
+     * Enables instancing, used by setupScene(): a mesh or native shape used by several nodes is stored once in local space
+	 * and the nodes are drawn from it at each frame, so memory scales with the number of distinct meshes instead of the number of nodes.
+	 * Like nodes with levels of detail, instances are not split by the BSP tree, they are placed in its cells and sorted by distance.
+	 * Nodes crossing the planes of the BSP tree and meshes with less than 8 polygons are copied as without instancing.
+	 * Nodes eligible for instancing do not cast or receive static shadows, and instances are shaded at each frame
+	 */
+	public void setInstancing(boolean instancing) {
+		this.instancing = instancing;
+	}
+
+	/**
+     * Sets the projected radius of a node, as fraction of half screen height, below which level 1 is used, level 2 is used below half of it and so on
+	 */
+	public void setLODThreshold(double lodThreshold) {
+		if (!(lodThreshold > 0)) throw new IllegalArgumentException("threshold shall be greater than 0");
+		this.lodThreshold = lodThreshold;
+	}
+
+	/**
+     * Sets the maximum view distance along the view direction: polygons are clipped by the far plane at this distance
+	 * and subtrees of the BSP tree beyond it are skipped during traversal. Double.POSITIVE_INFINITY disables the far plane
+	 */
+	public void setViewDistance(double viewDistance) {
+		if (!(viewDistance > Z_NEAR)) throw new IllegalArgumentException("view distance shall be greater than " + Z_NEAR);
+		this.viewDistance = viewDistance;
+	}
+
+	public double getViewDistance() {
+		return viewDistance;
+	}
+
+	/**
+     * Enables linear fog: shaded colors are blended with color from distance start (no fog) to distance end (only fog).
+	 * Using the view distance as end, polygons fade out before reaching the far plane
+	 */
+	public void setLinearFog(Color color, double start, double end) {
+		if (!(end > start)) throw new IllegalArgumentException("end of fog shall be greater than start");
+		fog = Fog.LINEAR;
+		fogColor = color;
+		fogStart = start;
+		fogEnd = end;
+	}
+
+	/**
+     * Enables exponential fog: shaded colors are blended with color, the fraction of original color is exp(-density * distance)
+	 */
+	public void setExponentialFog(Color color, double density) {
+		if (!(density > 0)) throw new IllegalArgumentException("density of fog shall be greater than 0");
+		fog = Fog.EXPONENTIAL;
+		fogColor = color;
+		fogDensity = density;
+	}
+
+	public void clearFog() {
+		fog = Fog.NONE;
+	}
+
+	public Fog getFog() {
+		return fog;
+	}
+
+	public Color getFogColor() {
+		return fogColor;
+	}
+
+	/**
+     * Returns the fraction of original color at distance along the view direction, 1 means no fog and 0 means only fog
+	 */
+	public double getFogFactor(double distance) {
+		switch (fog) {
+			case LINEAR:
+				return Math.max(0, Math.min(1, (fogEnd - distance) / (fogEnd - fogStart)));
+			case EXPONENTIAL:
+				return Math.exp(-fogDensity * Math.max(0, distance));
+			default:
+				return 1;
+		}
+	}
+
+	/**
+     * Blends color rgb packed as 0xRRGGBB with fog at distance along the view direction, for example the w of a clipped vertex
+	 */
+	public int applyFog(int rgb, double distance) {
+		return fog == Fog.NONE ? rgb : blendFog(rgb, getFogFactor(distance));
+	}
+
+	private int blendFog(int rgb, double factor) {
+		double k = 1 - factor;
+		int r = (int) (((rgb >> 16) & 0xFF) * factor + fogColor.r * k + 0.5);
+		int g = (int) (((rgb >> 8) & 0xFF) * factor + fogColor.g * k + 0.5);
+		int b = (int) ((rgb & 0xFF) * factor + fogColor.b * k + 0.5);
+		return (r << 16) | (g << 8) | b;
 	}
 
 	public void setCameraPos(Vector3D cameraPos) {
@@ -113,6 +346,106 @@ public class Engine3D {
 		return sceneNodes;
 	}
 
+	//enable or disable merging of meshes with identical geometry in importFile(), default is enabled
+	public void setMeshDeduplication(boolean deduplicate) {
+		this.deduplicate = deduplicate;
+	}
+
+	/**
+     * Enables or disables merging of adjacent coplanar polygons with the same color in setupScene(), default is disabled.
+	 * Merging reduces the size of BSP tree and the number of rendered polygons, polygons with texture or smooth vertex normals are not merged.
+	 * Merging is applied only if all lights are directional and fog is disabled, as point lights and fog are evaluated at the center or
+	 * at the vertices of polygons, so merged polygons have the same colors of the original ones (for the lights and fog set before setupScene()).
+	 * The image is unchanged, apart from single pixels on the edges of polygons split by the BSP tree at different places.
+	 * Vertices at the same position are welded, so polygons of different nodes are merged too.
+	 */
+	public void setPolygonMerging(boolean merge) {
+		this.polygonMerging = merge;
+	}
+
+	/**
+     * Enables or disables the validation of polygons of meshes loaded by importFile(), default is enabled.
+	 * Validation can be disabled for trusted files, like files written by exportFile(). Library files are always validated.
+	 */
+	public void setMeshValidation(boolean validate) {
+		this.validateMeshes = validate;
+	}
+
+	/**
+     * Sets storage of vertices for meshes imported by importFile(), compact storage is applied only to meshes
+	 * with at least minVertices vertices, in order to reduce heap usage of large meshes like terrains.
+	 * Mesh.Storage.SHORT is lossy also on export, exportFile() writes the quantized vertices, so it shall not be used to convert files
+	 */
+	public void setVertexStorage(Mesh.Storage vertexStorage, int minVertices) {
+		this.vertexStorage = vertexStorage;
+		this.compactThreshold = minVertices;
+	}
+
+	/**
+     * Collapses meshes with identical geometry onto a single shared mesh, the first mesh in order of insertion is kept.
+	 * Every id is kept and the ids of duplicated meshes refer to the shared mesh, so nodes and levels of detail are unchanged
+	 * and exportFile() writes all ids. Returns number of duplicated meshes
+	 */
+	public int deduplicateMeshes() {
+		long t0 = System.nanoTime();
+		HashMap<Integer, List<Mesh>> interned = new HashMap<>();//geometry hash -> unique meshes
+		int n_duplicated = 0;
+		int n_vertices = 0;
+		int n_polygons = 0;
+		for (Map.Entry<String, Mesh> entry : meshes.entrySet()) {
+			Mesh mesh = entry.getValue();
+			if (mesh.source != null)
+				continue;//geometry is held by library file, already shared by MeshLibrary
+			List<Mesh> candidates = interned.computeIfAbsent(mesh.geometryHash(), k -> new ArrayList<>(1));
+			Mesh found = null;
+			for (Mesh candidate : candidates)
+				if (candidate == mesh || candidate.sameGeometry(mesh)) {
+					found = candidate;
+					break;
+				}
+			if (found == null)
+				candidates.add(mesh);
+			else if (found != mesh) {
+				entry.setValue(found);
+				n_duplicated++;
+				n_vertices += mesh.getVertexCount();
+				n_polygons += mesh.polygons.size();
+			}
+		}
+		if (print_statistics) {
+			float delta_ms = (System.nanoTime() - t0) / 1000000f;
+			System.out.println("Mesh deduplication: " + n_duplicated + " duplicated meshes shared, saved " + n_vertices + " vertices and " + n_polygons + " polygons, time: " + delta_ms + " ms");
+		}
+		return n_duplicated;
+	}
+
+	/**
+     * Replaces meshes with reduced meshes having about ratio times their polygons, see MeshDecimator. Meshes referencing library files
+	 * and meshes with texture coordinates are not changed. Returns number of removed polygons
+	 */
+	public int decimateMeshes(double ratio, double maxError) {
+		long t0 = System.nanoTime();
+		int n_removed = 0;
+		IdentityHashMap<Mesh, Mesh> reducedMeshes = new IdentityHashMap<>();//meshes shared by several ids are reduced once
+		for (Map.Entry<String, Mesh> entry : meshes.entrySet()) {
+			Mesh mesh = entry.getValue();
+			if (mesh.source != null || mesh.polygons.stream().anyMatch(Polygon3D::hasTextureCoordinates))
+				continue;
+			Mesh reduced = reducedMeshes.get(mesh);
+			if (reduced == null) {
+				reduced = mesh.decimate((int) (mesh.polygons.size() * ratio), maxError);
+				n_removed += mesh.polygons.size() - reduced.polygons.size();
+				reducedMeshes.put(mesh, reduced);
+			}
+			entry.setValue(reduced);
+		}
+		if (print_statistics) {
+			float delta_ms = (System.nanoTime() - t0) / 1000000f;
+			System.out.println("Mesh decimation: " + n_removed + " polygons removed, time: " + delta_ms + " ms");
+		}
+		return n_removed;
+	}
+
 	//return false if mesh id already present
 	public boolean addMesh(Mesh mesh) {
 		String id = mesh.id;
@@ -133,41 +466,248 @@ public class Engine3D {
 			System.out.println(getInfo(true));
 // Consolidate all polygons into one list to build BSP tree
 		List<Polyface3D> allPolygons = new ArrayList<>();
+		List<Vector3D> vertexPool = new ArrayList<>();//world vertices shared by polygons
+		List<LODObject> objects = new ArrayList<>();
+		// Meshes of nodes are resolved once, shapes may be evicted from their cache and created again by a later lookup
+		IdentityHashMap<Node, Mesh[]> nodeLevels = new IdentityHashMap<>();// level 0 is the mesh used by node
+		IdentityHashMap<Mesh, Integer> users = new IdentityHashMap<>();// number of nodes using each mesh
 		for (Node node : sceneNodes) {
-			Mesh mesh;
-			if (node.meshID == null)
-				mesh = Mesh.getShapeInstance(node.shape, node.shapeArguments);
-			else {
-				mesh = meshes.get(node.meshID);
-				if (mesh == null) {
-					throw new RuntimeException("meshID " + node.meshID + " does not exist");
+			Mesh[] levels = levelOfDetail ? getNodeLevels(node) : new Mesh[] {getNodeMesh(node)};
+			nodeLevels.put(node, levels);
+			if (instancing)
+				users.merge(levels[0], 1, Integer::sum);
+		}
+		IdentityHashMap<Mesh, InstancedMesh> instancedMeshes = new IdentityHashMap<>();
+		List<MeshInstance> instances = new ArrayList<>();
+		for (Node node : sceneNodes) {
+			Mesh[] levels = nodeLevels.get(node);
+			Mesh mesh = levels[0];
+			Integer n_users = users.get(mesh);
+			if (instancing && n_users != null && n_users > 1 && mesh.getConvexPolygons().size() >= MIN_INSTANCE_POLYGONS && node.worldMatrix.determinant() != 0) {// polygons in local space are shared by instances
+				InstancedMesh instanced = instancedMeshes.get(mesh);
+				if (instanced == null) {
+					instanced = createInstancedMesh(levels);
+					instancedMeshes.put(mesh, instanced);
 				}
+				instances.add(new MeshInstance(instanced, node));
+			} else if (levels.length > 1)
+				objects.add(createLODObject(node, levels));
+			else addWorldPolygons(node, mesh, vertexPool, allPolygons);
+		}
+		int n_references = 0;
+		for (Polyface3D poly : allPolygons)
+			n_references += poly.indexes.length;
+		int n_shared = vertexPool.size();
+		boolean pointLights = false;// flat shading of point lights depends on the center of polygons
+		for (Light3D light : lights)
+			pointLights |= !light.directional;
+		if (polygonMerging && !pointLights && fog == Fog.NONE) {// before shadows and BSP tree, polygons of the same plane are joined
+			long t0 = System.nanoTime();
+			int n_polygons = allPolygons.size();
+			allPolygons = PolygonMerger.mergeScene(allPolygons, vertexPool);
+			if (print_statistics) {
+				float delta_ms = (System.nanoTime() - t0) / 1000000f;
+				System.out.println("Polygon merging time: " + delta_ms + " ms, polygons: " + n_polygons + " -> " + allPolygons.size());
 			}
-			// Need to transform polygons to *World Space* before building the tree
-			for (Polygon3D poly : mesh.polygons) {
-				Vector3D[] vertices = new Vector3D[poly.vertex_indexes.length];
-				for (int i = 0; i < poly.vertex_indexes.length; i++)
-					vertices[i] = mesh.vertices[poly.vertex_indexes[i]].clone();
-				node.worldMatrix.transformInPlace(vertices);
-
-				Color color = Color.GRAY;//default color
-				if (poly.colorIndex == null)
-					color = node.color;
-				else if (node.colorList != null && poly.colorIndex < node.colorList.length) {
-					color = node.colorList[poly.colorIndex];
-				}
-				Polyface3D worldPoly = new Polyface3D(color, vertices); // Base color comes from the original node polygon
-				if (!worldPoly.isConvex())
-					System.out.println("Warning: found not convex polygon in mesh " + poly.mesh.id + ", 3D rendering might be wrong!");
-				allPolygons.add(worldPoly);
+		}
+		shadowVersion = 0;
+		if (shadows && !lights.isEmpty()) {// shadow fragments are built before BSP tree
+			long t0 = System.nanoTime();
+			int n_polygons = allPolygons.size();
+			allPolygons = ShadowBuilder.build(allPolygons, lights, vertexPool);
+			shadowVersion = lightVersion;
+			if (print_statistics) {
+				float delta_ms = (System.nanoTime() - t0) / 1000000f;
+				System.out.println("Shadow building time: " + delta_ms + " ms, polygons: " + n_polygons + " -> " + allPolygons.size());
 			}
 		}
 		long t0 = System.nanoTime();
-		sceneBspTree = BSPNode.build(allPolygons);
+		sceneBspTree = BSPNode.build(allPolygons, vertexPool);
+		if (sceneBspTree != null)// instances crossing planes of the tree are copied, so they are sorted with the polygons of the scene
+			for (List<MeshInstance> crossing = removeCrossing(instances); !crossing.isEmpty(); crossing = removeCrossing(instances))
+				for (MeshInstance instance : crossing) {
+					Mesh[] levels = nodeLevels.get(instance.node);
+					if (levels.length > 1)
+						objects.add(createLODObject(instance.node, levels));
+					else {
+						List<Polyface3D> polygons = new ArrayList<>();
+						addWorldPolygons(instance.node, levels[0], vertexPool, polygons);
+						for (Polyface3D poly : polygons)
+							sceneBspTree.insert(poly, vertexPool);
+					}
+				}
+		int n_lod = objects.size();
+		objects.addAll(instances);
+		sceneObjects = objects;
+		if (sceneBspTree != null)
+			for (LODObject object : objects)
+				sceneBspTree.insert(object);
+		sceneVertices = vertexPool.toArray(new Vector3D[0]);
+		if (floatPrecision) {
+			sceneVertexData = new float[sceneVertices.length * 3];
+			for (int i = 0; i < sceneVertices.length; i++) {
+				sceneVertexData[i * 3] = (float) sceneVertices[i].x;
+				sceneVertexData[i * 3 + 1] = (float) sceneVertices[i].y;
+				sceneVertexData[i * 3 + 2] = (float) sceneVertices[i].z;
+			}
+			projectedData = new float[sceneVertices.length * 4];
+			projectedVertices = new double[0];
+		} else {
+			sceneVertexData = null;
+			projectedData = null;
+			projectedVertices = new double[sceneVertices.length * 4];
+		}
+		projectedFrame = new int[sceneVertices.length];
+		frame = 0;
+		// Shading cache, lights and world polygons are static
+		List<Polyface3D> polygons = new ArrayList<>();
+		if (sceneBspTree != null)
+			sceneBspTree.getPolygons(polygons);
+		setupLightingStage(polygons);
 		if (print_statistics) {
 			float delta_ms = (System.nanoTime() - t0) / 1000000f;
 			System.out.println("BSP building time: " + delta_ms + " ms");
-			System.out.println("Size of BSP tree: " + sceneBspTree.size() + ", deepness: " + sceneBspTree.deepness());
+			if (sceneBspTree != null)
+				System.out.println("Size of BSP tree: " + sceneBspTree.size() + ", deepness: " + sceneBspTree.deepness());
+			if (!instances.isEmpty())
+				System.out.println("Instances: " + instances.size() + " of " + instancedMeshes.size() + " meshes");
+			if (n_lod > 0)
+				System.out.println("Objects with levels of detail: " + n_lod);
+			System.out.println("Shared world vertices: " + n_shared + " for " + n_references + " polygon vertices, vertices added by BSP splits: " + (sceneVertices.length - n_shared));
+		}
+	}
+
+	//returns the mesh used by node
+	private Mesh getNodeMesh(Node node) {
+		if (node.meshID == null)
+			return Mesh.getShapeInstance(node.shape, node.shapeArguments);
+		Mesh mesh = meshes.get(node.meshID);
+		if (mesh == null) {
+			throw new RuntimeException("meshID " + node.meshID + " does not exist");
+		}
+		return resolveMesh(mesh);
+	}
+
+	//returns the levels of detail of node, level 0 is the mesh used by node
+	private Mesh[] getNodeLevels(Node node) {
+		if (node.meshID == null)
+			return Mesh.getShapeLevels(node.shape, node.shapeArguments);
+		Mesh mesh = meshes.get(node.meshID);
+		if (mesh == null || mesh.lods == null)
+			return new Mesh[] {getNodeMesh(node)};
+		Mesh[] levels = new Mesh[mesh.lods.length + 1];
+		levels[0] = resolveMesh(mesh);
+		for (int i = 0; i < mesh.lods.length; i++) {
+			Mesh level = meshes.get(mesh.lods[i]);
+			if (level == null)
+				throw new RuntimeException("level of detail " + mesh.lods[i] + " of mesh " + mesh.id + " does not exist");
+			levels[i + 1] = resolveMesh(level);
+		}
+		return levels;
+	}
+
+	//world polygons of all levels, vertices are not shared
+	private LODObject createLODObject(Node node, Mesh[] levels) {
+		List<List<Polyface3D>> levelPolygons = new ArrayList<>();
+		for (Mesh level : levels) {
+			List<Polyface3D> polygons = new ArrayList<>();
+			addWorldPolygons(node, level, null, polygons);
+			levelPolygons.add(polygons);
+		}
+		return new LODObject(levelPolygons);
+	}
+
+	//removes and returns the instances crossing the planes of the BSP tree
+	private List<MeshInstance> removeCrossing(List<MeshInstance> instances) {
+		List<MeshInstance> crossing = new ArrayList<>();
+		for (Iterator<MeshInstance> it = instances.iterator(); it.hasNext(); ) {
+			MeshInstance instance = it.next();
+			if (sceneBspTree.crosses(instance)) {
+				it.remove();
+				crossing.add(instance);
+			}
+		}
+		return crossing;
+	}
+
+	//returns the polygons of meshes in local space, shared by the instances of level 0 mesh
+	private InstancedMesh createInstancedMesh(Mesh[] levels) {
+		Matrix4x4 identity = Matrix4x4.createIdentity();
+		InstancedMesh.Level[] result = new InstancedMesh.Level[levels.length];
+		for (int i = 0; i < levels.length; i++) {
+			List<Vector3D> vertexPool = new ArrayList<>();
+			List<Polyface3D> polygons = new ArrayList<>();
+			addWorldPolygons(identity, null, null, levels[i], vertexPool, polygons);
+			result[i] = new InstancedMesh.Level(polygons, vertexPool);
+		}
+		return new InstancedMesh(result);
+	}
+
+	/**
+     * Transforms the polygons of node to world space and adds them to polygons.
+	 * If vertexPool is not null, the world vertices are added to vertexPool and shared by the polygons, each vertex is transformed once
+	 */
+	private void addWorldPolygons(Node node, List<Vector3D> vertexPool, List<Polyface3D> polygons) {
+		addWorldPolygons(node, getNodeMesh(node), vertexPool, polygons);
+	}
+
+	private void addWorldPolygons(Node node, Mesh mesh, List<Vector3D> vertexPool, List<Polyface3D> polygons) {
+		addWorldPolygons(node.worldMatrix, node.color, node.colorList, mesh, vertexPool, polygons);
+	}
+
+	private void addWorldPolygons(Matrix4x4 worldMatrix, Color nodeColor, Color[] colorList, Mesh mesh, List<Vector3D> vertexPool, List<Polyface3D> polygons) {
+		// Need to transform vertices to *World Space*
+		int n_vertices = mesh.getVertexCount();
+		Vector3D[] worldVertices = new Vector3D[n_vertices];
+		int base = vertexPool == null ? 0 : vertexPool.size();
+		for (int i = 0; i < n_vertices; i++) {
+			Vector3D vertex = mesh.getVertex(i);
+			worldMatrix.multiply(vertex, vertex);
+			worldVertices[i] = vertex;
+			if (vertexPool != null)
+				vertexPool.add(vertex);
+		}
+		Texture texture = mesh.texturePath == null ? null : resolveTexture(mesh);
+		Mesh.VertexNormals vertexNormals = null;
+		Vector3D[] worldNormals = null;
+		if (smoothingAngle > 0) {// smooth normals of the mesh transformed to world space
+			vertexNormals = mesh.getVertexNormals(smoothingAngle);
+			worldNormals = new Vector3D[vertexNormals.normals.length];
+			for (int i = 0; i < worldNormals.length; i++)
+				worldNormals[i] = worldMatrix.multiplyNormal(vertexNormals.normals[i], new Vector3D(0, 0, 0));
+		}
+		List<Polygon3D> meshPolygons = mesh.getConvexPolygons();
+		for (int p = 0; p < meshPolygons.size(); p++) {
+			Polygon3D poly = meshPolygons.get(p);
+			Vector3D[] vertices = new Vector3D[poly.vertex_indexes.length];
+			int[] indexes = vertexPool == null ? null : new int[poly.vertex_indexes.length];
+			for (int i = 0; i < poly.vertex_indexes.length; i++) {
+				vertices[i] = worldVertices[poly.vertex_indexes[i]];
+				if (indexes != null)
+					indexes[i] = base + poly.vertex_indexes[i];
+			}
+
+			Color color = Color.GRAY;//default color
+			if (poly.colorIndex == null)
+				color = nodeColor;
+			else if (colorList != null && poly.colorIndex < colorList.length) {
+				color = colorList[poly.colorIndex];
+			}
+			Polyface3D worldPoly = new Polyface3D(color, vertices, indexes); // Base color comes from the original node polygon
+			if (poly.colorIndex != null)
+				worldPoly.colorIndex = poly.colorIndex;
+			if (worldNormals != null) {
+				int[] normalIndexes = vertexNormals.indexes[p];
+				worldPoly.vertexNormals = new Vector3D[normalIndexes.length];
+				for (int i = 0; i < normalIndexes.length; i++)
+					worldPoly.vertexNormals[i] = worldNormals[normalIndexes[i]];
+			}
+			if (texture != null && poly.u != null) {// texture coordinates are immutable, they are shared with the mesh
+				worldPoly.texture = texture;
+				worldPoly.u = poly.u;
+				worldPoly.v = poly.v;
+			}
+			polygons.add(worldPoly);
 		}
 	}
 
@@ -193,87 +733,238 @@ public class Engine3D {
 
 		// View-Projection Matrix (reused object)
 		matView.multiply(matProj, matViewProj); // matView * matProj -> matViewProj
+		if (sceneVertexData != null)
+			matViewProj.get(viewProjData);
+		frame++; // invalidates projected vertices of previous frame
+		if (litVersion != lightVersion)
+			lightingStage(); // lights changed since last frame
 
 
 		// --- Rendering Loop using BSP Traversal ---
-		if (sceneBspTree != null) {
-			// 1. Traverse the World-Space BSP tree to get a back-to-front list of *World* polygons.
-			List<Polyface3D> worldPolygons = new ArrayList<>();
-			sceneBspTree.traverse(cameraPos, worldPolygons);
-
-			// 2. Process, Project, and Shade each polygon in the correct order.
-			for (Polyface3D worldPoly : worldPolygons) {
-
-				// Backface Culling (Check against the camera, as the poly is in world space)
-				Vector3D v1 = worldPoly.vertices[0];
-				v1.subtract(cameraPos, cameraRay); // cameraRay = v1 - cameraPos (In-place)
-				if (worldPoly.normal.dot(cameraRay) >= 0.0)
-					continue;
+		// 1. Traverse the World-Space BSP tree to get a back-to-front list of *World* polygons.
+		List<Polyface3D> worldPolygons = new ArrayList<>();
+		double lodScale = matProj.m[1][1] / lodThreshold;// projected radius of objects compared to the threshold
+		if (sceneBspTree != null)
+			sceneBspTree.traverse(cameraPos, lookDir, viewDistance, lodScale, worldPolygons);
+		else {// scene made only of objects with levels of detail
+			LODObject.sort(sceneObjects, cameraPos);
+			for (LODObject object : sceneObjects)
+				object.addPolygons(cameraPos, lookDir, viewDistance, lodScale, worldPolygons);
+		}
 
-				// Transform & clip
-				List<ClippedVertex> projectedVertices = transformAndScreenMap(worldPoly, matViewProj);
-				if (projectedVertices == null)
-					continue;
-				// Apply the single-color flat shade
-				render.accept(projectedVertices, worldPoly);
-			}
+		if (frontToBack)
+			Collections.reverse(worldPolygons);
+
+		// 2. Process, Project, and Shade each polygon in the correct order.
+		for (Polyface3D worldPoly : worldPolygons)
+			renderPolygon(worldPoly, render);
+	}
+
+	/**
+     * Renders nodes not included in the scene, like moving objects, using the camera of the last render3D() call.
+	 * Polygons are not sorted, so the renderer shall use a depth buffer, the nodes are transformed at each call and the BSP tree is not rebuilt
+	 */
+	public void renderNodes(List<Node> nodes, BiConsumer<List<ClippedVertex>, Polyface3D> render) {
+		List<Polyface3D> worldPolygons = new ArrayList<>();
+		for (Node node : nodes)
+			addWorldPolygons(node, null, worldPolygons);
+		for (Polyface3D worldPoly : worldPolygons)
+			renderPolygon(worldPoly, render);
+	}
+
+	private void renderPolygon(Polyface3D worldPoly, BiConsumer<List<ClippedVertex>, Polyface3D> render) {
+		// Backface Culling (Check against the camera, as the poly is in world space)
+		Vector3D v1 = worldPoly.vertices[0];
+		v1.subtract(cameraPos, cameraRay); // cameraRay = v1 - cameraPos (In-place)
+		if (worldPoly.normal.dot(cameraRay) >= 0.0)
+			return;
+
+		// Transform & clip
+		List<ClippedVertex> projectedVertices = transformAndScreenMap(worldPoly, matViewProj);
+		if (projectedVertices == null)
+			return;
+		if (fog != Fog.NONE) {// fog of flat shading at the average distance of vertices
+			double w = 0;
+			for (ClippedVertex cv : projectedVertices)
+				w += cv.clipped.w;
+			worldPoly.fogFactor = (float) getFogFactor(w / projectedVertices.size());
 		}
+		// Apply the single-color flat shade
+		render.accept(projectedVertices, worldPoly);
 	}
 
 	/**
      * Returns flat color shading
 	 */
 	public Color getFlatShaderColor(Polyface3D poly) {
+		int rgb = getFlatShaderRGB(poly);
+		return new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+	}
+
+	/**
+     * Returns flat color shading packed as 0xRRGGBB, the color is cached in the polygon until lights are changed.
+	 * If fog is enabled, the color is blended with fog at the distance of the polygon in the last rendered frame
+	 */
+	public int getFlatShaderRGB(Polyface3D poly) {
+		if (poly.shadedVersion != lightVersion) {
+			poly.shadedRGB = computeFlatShaderRGB(poly);
+			poly.shadedVersion = lightVersion;
+		}
+		return fog == Fog.NONE ? poly.shadedRGB : blendFog(poly.shadedRGB, poly.fogFactor);
+	}
+
+	private int computeFlatShaderRGB(Polyface3D poly) {
 		// Illumination (Flat Shading)
 		polyCenter.set(poly.vertices[0]); //(Reuse polyCenter object)
 		int n_vertices = poly.vertices.length;
 		for (int i = 1; i < n_vertices; i++)
 			polyCenter.add(poly.vertices[i]);// In-place operations
 		polyCenter.divide(n_vertices); // In-place operations
-		// lightDir = lightPos - polyCenter
-		light.lightPos.subtract(polyCenter, lightDir).normalize(); // In-place subtract and normalize
+		return shade(poly.color, polyCenter, poly.normal, poly.shadowMask);
+	}
+
+	/**
+     * Evaluates all lights at point p with normal n, excluding lights in shadowMask, returns color packed as 0xRRGGBB
+	 */
+	private int shade(Color baseColor, Vector3D p, Vector3D n, long shadowMask) {
+		double ir = 0, ig = 0, ib = 0;// light intensity
+		if (shadowVersion != lightVersion)
+			shadowMask = 0;// shadows are not valid for current lights
+		for (int li = 0; li < lights.size(); li++) {
+			Light3D light = lights.get(li);
+			if (li < ShadowBuilder.MAX_LIGHTS && (shadowMask & (1L << li)) != 0)
+				continue;// point p is in the shadow of this light
+			Vector3D l = light.lightPos;
+			double dx = l.x, dy = l.y, dz = l.z;
+			if (!light.directional) {// light direction = lightPos - p
+				dx -= p.x;
+				dy -= p.y;
+				dz -= p.z;
+			}
+			double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			double dp = len > 0 ? Math.max(0, (n.x * dx + n.y * dy + n.z * dz) / len) : 0;
+			ir += light.color.r * dp;
+			ig += light.color.g * dp;
+			ib += light.color.b * dp;
+		}
+		return packColor(baseColor, ir, ig, ib);
+	}
 
-		double dp = Math.max(0.1, poly.normal.dot(lightDir)); // Max between 0.1 (ambient) and the dot product
+	private int ambientRed, ambientGreen, ambientBlue;//max color component among lights, ambient is AMBIENT * this value
 
-		Color lightColor = light.color;
-		Color baseColor = poly.color;
-		int r = (int) (baseColor.getRed() * lightColor.getRed() * dp / 255);
-		int g = (int) (baseColor.getGreen() * lightColor.getGreen() * dp / 255);
-		int b = (int) (baseColor.getBlue() * lightColor.getBlue() * dp / 255);
+	private void updateAmbient() {
+		ambientRed = ambientGreen = ambientBlue = 0;
+		for (Light3D light : lights) {
+			ambientRed = Math.max(ambientRed, light.color.r);
+			ambientGreen = Math.max(ambientGreen, light.color.g);
+			ambientBlue = Math.max(ambientBlue, light.color.b);
+		}
+	}
+
+	private int packColor(Color baseColor, double ir, double ig, double ib) {
+		if (litVersion != lightVersion)
+			updateAmbient();
+		int r = Math.min(255, (int) (baseColor.r * Math.max(AMBIENT * ambientRed, ir) / 255));
+		int g = Math.min(255, (int) (baseColor.g * Math.max(AMBIENT * ambientGreen, ig) / 255));
+		int b = Math.min(255, (int) (baseColor.b * Math.max(AMBIENT * ambientBlue, ib) / 255));
+		return (r << 16) | (g << 8) | b;
+	}
+
+	/**
+     * Collects centers and normals of scene polygons in primitive arrays and runs the lighting stage
+	 */
+	private void setupLightingStage(List<Polyface3D> polygons) {
+		int n = polygons.size();
+		scenePolygons = polygons.toArray(new Polyface3D[0]);
+		centerX = new double[n]; centerY = new double[n]; centerZ = new double[n];
+		normalX = new double[n]; normalY = new double[n]; normalZ = new double[n];
+		for (int i = 0; i < n; i++) {
+			Polyface3D poly = scenePolygons[i];
+			double x = 0, y = 0, z = 0;
+			for (Vector3D v : poly.vertices) {
+				x += v.x;
+				y += v.y;
+				z += v.z;
+			}
+			int n_vertices = poly.vertices.length;
+			centerX[i] = x / n_vertices; centerY[i] = y / n_vertices; centerZ[i] = z / n_vertices;
+			normalX[i] = poly.normal.x; normalY[i] = poly.normal.y; normalZ[i] = poly.normal.z;
+		}
+		lightingStage();
+	}
 
-		return new Color(r, g, b);
+	/**
+     * Lighting stage: evaluates all lights for all scene polygons and stores flat shading colors in the polygons.
+	 * The loops run over primitive arrays, one light at a time, it is executed only when lights are changed.
+	 */
+	private void lightingStage() {
+		updateAmbient();
+		litVersion = lightVersion;
+		int n = scenePolygons.length;
+		double[] ir = new double[n];
+		double[] ig = new double[n];
+		double[] ib = new double[n];
+		boolean useShadows = shadowVersion == lightVersion;
+		for (int li = 0; li < lights.size(); li++) {
+			Light3D light = lights.get(li);
+			double lx = light.lightPos.x, ly = light.lightPos.y, lz = light.lightPos.z;
+			double w = light.directional ? 0 : 1;// directional light does not depend on polygon position
+			double lr = light.color.r, lg = light.color.g, lb = light.color.b;
+			long lightBit = useShadows && li < ShadowBuilder.MAX_LIGHTS ? 1L << li : 0;
+			for (int i = 0; i < n; i++) {
+				if ((scenePolygons[i].shadowMask & lightBit) != 0)
+					continue;// polygon is in the shadow of this light
+				double dx = lx - w * centerX[i];
+				double dy = ly - w * centerY[i];
+				double dz = lz - w * centerZ[i];
+				double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+				double dp = (normalX[i] * dx + normalY[i] * dy + normalZ[i] * dz) / len;
+				dp = dp > 0 ? dp : 0;// also NaN in case of len = 0
+				ir[i] += lr * dp;
+				ig[i] += lg * dp;
+				ib[i] += lb * dp;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			Polyface3D poly = scenePolygons[i];
+			poly.shadedRGB = packColor(poly.color, ir[i], ig[i], ib[i]);
+			poly.shadedVersion = lightVersion;
+		}
 	}
 
 	/**
-     * Returns vertices color shading, useful for Gouraud shading
-	 * TODO: for each vertex, the normal shall be calculated over all polygons sharing the vertex instead of using the normal of the current polygon
-	 * TODO: in case of interpolated vertex, calculate the color for the interpolated vertex instead of fallback to flat shade
+     * Returns vertices color shading, useful for Gouraud shading, including fog if enabled
+	 * The color of a vertex interpolated by near-plane or far-plane clipping is interpolated from the colors of the clipped edge
 	 */
 	public Color[] getVertexShaderColor(List<ClippedVertex> projectedVertices, Polyface3D poly) {
 		int n_vertices = projectedVertices.size();
 		Color[] colors = new Color[n_vertices];
+		int[] vertexRGB = getVertexShaderRGB(poly);
 	
 		// Illumination per vertex
 		for (int i = 0; i < n_vertices; i++) {
-			int polyVertexIndex = projectedVertices.get(i).polyVertexIndex;
-			if (polyVertexIndex == -1)
-				return null;//TODO: process interpolated vertex instead of fallback to flat shade
-
-			// lightDir = lightPos - vertex[i]
-			light.lightPos.subtract(poly.vertices[polyVertexIndex], lightDir).normalize(); // In-place subtract and normalize
-
-			double dp = Math.max(0.1, poly.normal.dot(lightDir)); // Max between 0.1 (ambient) and the dot product
-			Color lightColor = light.color;
-			Color baseColor = poly.color;
-			int r = (int) (baseColor.getRed() * lightColor.getRed() * dp / 255);
-			int g = (int) (baseColor.getGreen() * lightColor.getGreen() * dp / 255);
-			int b = (int) (baseColor.getBlue() * lightColor.getBlue() * dp / 255);
-
-			colors[i] = new Color(r, g, b);
+			ClippedVertex cv = projectedVertices.get(i);
+			int rgb = applyFog(cv.interpolateRGB(vertexRGB), cv.clipped.w);
+			colors[i] = new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
 		}
 		return colors;
 	}
 
+	/**
+     * Returns shading colors of polygon vertices packed as 0xRRGGBB, colors are cached in the polygon until lights are changed
+	 */
+	public int[] getVertexShaderRGB(Polyface3D poly) {
+		if (poly.vertexShadedVersion != lightVersion) {
+			int n_vertices = poly.vertices.length;
+			if (poly.vertexRGB == null)
+				poly.vertexRGB = new int[n_vertices];
+			for (int i = 0; i < n_vertices; i++)
+				poly.vertexRGB[i] = shade(poly.color, poly.vertices[i], poly.vertexNormals != null ? poly.vertexNormals[i] : poly.normal, poly.shadowMask);
+			poly.vertexShadedVersion = lightVersion;
+		}
+		return poly.vertexRGB;
+	}
+
 	/**
      * Updates camera position, return true if camera position is changed
 	 */
@@ -307,9 +998,44 @@ public class Engine3D {
 	}
 
 	/**
-     * Import json compressed scene3D file, returns optional userdata JSONObject
+     * Returns the mesh holding geometry data, meshes referencing a library file are loaded on first use
+	 * and kept by the referencing mesh, so MeshLibrary is not queried again for each node
 	 */
-	public JSONObject importFile(String filename) throws JSONException, IOException {
+	private static Mesh resolveMesh(Mesh mesh) {
+		if (mesh.source == null)
+			return mesh;
+		Mesh resolved = mesh.resolved;
+		if (resolved == null) {
+			try {
+				resolved = MeshLibrary.getMesh(mesh.sourcePath, mesh.id);
+			} catch (JSONException | IOException e) {
+				throw new RuntimeException("unable to load mesh " + mesh.id + " from library file " + mesh.source, e);
+			}
+			mesh.resolved = resolved;
+		}
+		return resolved;
+	}
+
+	/**
+     * Returns the texture used by mesh, textures are loaded on first use and kept in TextureCache
+	 */
+	private static Texture resolveTexture(Mesh mesh) {
+		try {
+			return TextureCache.getTexture(mesh.texturePath);
+		} catch (IOException e) {
+			throw new RuntimeException("unable to load texture " + mesh.texture + " of mesh " + mesh.id, e);
+		}
+	}
+
+	//relative path is resolved against folder parent
+	static String resolvePath(File parent, String path) {
+		return new File(path).isAbsolute() ? path : new File(parent, path).getPath();
+	}
+
+	/**
+     * Parse json compressed file
+	 */
+	static JSONValue parseFile(String filename) throws JSONException, IOException {
         try (
             FileInputStream fis = new FileInputStream(filename);
             GZIPInputStream gis = new GZIPInputStream(fis);
@@ -317,49 +1043,103 @@ public class Engine3D {
             BufferedReader br = new BufferedReader(isr)) {
 
             String fileContent = br.lines().collect(Collectors.joining("\n"));
-			JSONValue content = JSONValue.parse(fileContent);
-			JSONObject world = (JSONObject) content;
-			JSONValue _type = world.get("type");
-			if (_type == null)
-				throw new IOException("missing element 'type'");
-			String type = (String) _type.toJava();
-			if (!type.equals("world"))
-				throw new IOException("unsupported type: " + type);
-
-			JSONValue _format = world.get("format");
-			if ((_format == null) || !((String) _format.toJava()).equals("simple3D.1"))
-				System.out.println("Warning: unsupported format");
-
-			JSONObject _light = (JSONObject) world.get("light");
-			Color color = new Color(); color.load(_light.get("color"));
-			Vector3D vet = new Vector3D(); vet.load(_light.get("position"));			
-			light = new Light3D(color, vet.x, vet.y, vet.z);
-
-			JSONObject _camera = (JSONObject) world.get("camera");
-			cameraPos = new Vector3D(); cameraPos.load(_camera.get("position"));	
-			
-			JSONArray nodes = (JSONArray) world.get("nodes");
-			int n_nodes = nodes.size();
-			sceneNodes.clear(); 
-			for (int i = 0; i < n_nodes; i++) {
-				Node node = new Node();
-				node.load(nodes.get(i));
-				sceneNodes.add(node);
+			return JSONValue.parse(fileContent);
+		}
+	}
+
+	/**
+     * Import json compressed scene3D file, returns optional userdata JSONObject
+	 */
+	public JSONObject importFile(String filename) throws JSONException, IOException {
+		JSONObject world = (JSONObject) parseFile(filename);
+		JSONValue _type = world.get("type");
+		if (_type == null)
+			throw new IOException("missing element 'type'");
+		String type = (String) _type.toJava();
+		if (!type.equals("world"))
+			throw new IOException("unsupported type: " + type);
+
+		JSONValue _format = world.get("format");
+		if ((_format == null) || !((String) _format.toJava()).equals("simple3D.1"))
+			System.out.println("Warning: unsupported format");
+
+		lights.clear();
+		lightVersion++;
+		JSONObject _light = (JSONObject) world.get("light");
+		if (_light != null)
+			lights.add(loadLight(_light));
+		JSONArray _lights = (JSONArray) world.get("lights");//optional additional lights
+		if (_lights != null) {
+			int n_lights = _lights.size();
+			for (int i = 0; i < n_lights; i++)
+				lights.add(loadLight((JSONObject) _lights.get(i)));
+		}
+
+		JSONObject _camera = (JSONObject) world.get("camera");
+		cameraPos = new Vector3D(); cameraPos.load(_camera.get("position"));	
+		
+		JSONArray nodes = (JSONArray) world.get("nodes");
+		int n_nodes = nodes.size();
+		sceneNodes.clear(); 
+		for (int i = 0; i < n_nodes; i++) {
+			Node node = new Node();
+			node.load(nodes.get(i));
+			sceneNodes.add(node);
+		}
+
+		meshes.clear(); 
+		JSONArray _meshes = (JSONArray) world.get("meshes");
+		if (_meshes != null && _meshes.size() > 0) {
+			int n_meshes = _meshes.size();
+			File parent = new File(filename).getAbsoluteFile().getParentFile();
+			for (int i = 0; i < n_meshes; i++) {
+				Mesh mesh = new Mesh();
+				mesh.load(_meshes.get(i), validateMeshes);
+				if (mesh.source != null)//relative path of library file is resolved against the folder of world file
+					mesh.sourcePath = resolvePath(parent, mesh.source);
+				if (mesh.texture != null)
+					mesh.texturePath = resolvePath(parent, mesh.texture);
+				meshes.put(mesh.id, mesh);
 			}
+			if (deduplicate)
+				deduplicateMeshes();
+			if (vertexStorage != Mesh.Storage.DOUBLE) {
+				for (Mesh mesh : meshes.values())
+					if (mesh.source == null && mesh.getVertexCount() >= compactThreshold)
+						mesh.setStorage(vertexStorage);
+			}
+		}
+		this.filename = filename;
+		return (JSONObject) world.get("userdata");
+	}
 
-			meshes.clear(); 
-			JSONArray _meshes = (JSONArray) world.get("meshes");
-			if (_meshes != null && _meshes.size() > 0) {
-				int n_meshes = _meshes.size();
-				for (int i = 0; i < n_meshes; i++) {
-					Mesh mesh = new Mesh();
-					mesh.load(_meshes.get(i));
-					meshes.put(mesh.id, mesh);
-				}
+	private static Light3D loadLight(JSONObject _light) {
+		JSONValue _color = _light.get("color");
+		Color color = _color == null ? Color.WHITE : Color.parse((String) _color.toJava());//default color is #FFFFFF
+		Vector3D vet = new Vector3D();
+		JSONValue _direction = _light.get("direction");
+		if (_direction != null) {
+			vet.load(_direction);
+			return Light3D.createDirectional(color, vet.x, vet.y, vet.z);
+		}
+		vet.load(_light.get("position"));
+		return new Light3D(color, vet.x, vet.y, vet.z);
+	}
+
+	private final static double LEGACY_LIGHT_DISTANCE = 10000;// distance of the position written for a directional main light
+
+	private static void saveLight(Light3D light, boolean main, JSONWriter out) throws IOException {
+		out.beginObject();
+		out.key("color").value(light.color.toString());
+		if (light.directional) {
+			out.key("direction"); light.getVector().save(out);
+			if (main) {//readers of previous format require the position of "light", a far point light approximates the directional light
+				out.key("position"); light.lightPos.clone().multiply(LEGACY_LIGHT_DISTANCE).save(out);
 			}
-			this.filename = filename;
-			return (JSONObject) world.get("userdata");
-        }
+		} else {
+			out.key("position"); light.lightPos.save(out);
+		}
+		out.endObject();
 	}
 
 	public String getFileName() {
@@ -374,60 +1154,74 @@ public class Engine3D {
 	}
 
 	/**
-     * Export to json compressed scene3D file, including optional userdata JSONObject
+     * Export to json compressed scene3D file, including optional userdata JSONObject.
+	 * Vertices of meshes with Mesh.Storage.SHORT are written as quantized, see setVertexStorage()
 	 */
 	public void exportFile(String filename, JSONObject userdata) throws IOException {
-		LinkedHashMap<String, Object> world = new LinkedHashMap<>();
-		world.put("type", "world");
-		world.put("format", "simple3D.1");
-		LinkedHashMap<String, Object> _light = new LinkedHashMap<>();
-		_light.put("color", light.color.toString());
-		_light.put("position", light.lightPos.save());
-		world.put("light", new JSONObject(_light));
-		LinkedHashMap<String, Object> _camera = new LinkedHashMap<>();
-		_camera.put("position", cameraPos.save());
-		world.put("camera", new JSONObject(_camera));
-		ArrayList<JSONValue> nodes = new ArrayList<>();
-		for (Node node : sceneNodes) {
-			nodes.add(node.save());
-		}
-		world.put("nodes", new JSONArray(nodes));
-		ArrayList<JSONValue> _meshes = new ArrayList<>();
-		for (Map.Entry<String, Mesh> entry : meshes.entrySet()) {
-//			String key = entry.getKey();
-			Mesh mesh = entry.getValue();
-			_meshes.add(mesh.save());
-
+//Write <world> to file with filename, streaming json content directly to the compressed file
+		try (FileOutputStream fos = new FileOutputStream(filename);
+			GZIPOutputStream gos = new GZIPOutputStream(fos);
+			JSONWriter out = new JSONWriter(new BufferedWriter(new OutputStreamWriter(gos, StandardCharsets.UTF_8)))) {
+			out.beginObject();
+			out.key("type").value("world");
+			out.key("format").value(format);
+			Light3D mainLight = null;// first point light is saved as "light", other lights as "lights"
+			for (Light3D light : lights)
+				if (!light.directional) {
+					mainLight = light;
+					break;
+				}
+			if (mainLight == null && !lights.isEmpty())
+				mainLight = lights.get(0);// only directional lights, the first one is saved as "light" with a far position
+			if (mainLight != null) {
+				out.key("light");
+				saveLight(mainLight, true, out);
+			}
+			if (lights.size() > (mainLight != null ? 1 : 0)) {
+				out.key("lights").beginArray();
+				for (Light3D light : lights)
+					if (light != mainLight)
+						saveLight(light, false, out);
+				out.endArray();
+			}
+			out.key("camera").beginObject();
+			out.key("position"); cameraPos.save(out);
+			out.endObject();
+			out.key("nodes").beginArray();
+			for (Node node : sceneNodes)
+				node.save(out);
+			out.endArray();
+			if (!meshes.isEmpty()) {
+				out.key("meshes").beginArray();
+				for (Map.Entry<String, Mesh> entry : meshes.entrySet())//meshes shared by several ids are written once per id
+					entry.getValue().save(out, entry.getKey());
+				out.endArray();
+			}
+			if (userdata != null)//transparent user data
+				out.key("userdata").value(userdata);
+			out.endObject();
 		}
-		if (!_meshes.isEmpty())
-			world.put("meshes", new JSONArray(_meshes));
-
-		if (userdata != null)//transparent user data
-			world.put("userdata", userdata);
-
-//Write <world> to file with filename
-		JSONValue out = new JSONObject(world);
-		try (FileOutputStream fos = new FileOutputStream(filename); GZIPOutputStream gos = new GZIPOutputStream(fos)) {
-            gos.write(out.toString().getBytes(StandardCharsets.UTF_8));
-            gos.finish();
-        }
 		this.filename = filename;
 	}
 
 	/**
 	 * Applies the View-Projection transform and scales vertices to screen coordinates.
 	 * The input worldPoly is copied and transformed to a new projectedPoly.
+	 * Shared vertices are transformed once per frame using the vertex stage, in this case matViewProj shall be the matrix of current frame.
 	 */
 	protected List<ClippedVertex> transformAndScreenMap(Polyface3D worldPoly, Matrix4x4 matViewProj) {
 
 		Vector3D[] vertices = new Vector3D[worldPoly.vertices.length];
-		for (int i = 0; i < vertices.length; i++)
-			vertices[i] = worldPoly.vertices[i].clone();
 		// 1. Transform directly by the combined View-Projection matrix
 
 		// Clip-space coordinates (before perspective divide)
-        for (Vector3D vertex : vertices)
-            matViewProj.multiply(vertex, vertex); // In-place vector-matrix multiplication
+		if (worldPoly.indexes != null) {
+			for (int i = 0; i < vertices.length; i++)
+				vertices[i] = projectVertex(worldPoly.indexes[i], matViewProj);
+		} else {
+			for (int i = 0; i < vertices.length; i++)
+				vertices[i] = matViewProj.multiply(worldPoly.vertices[i], new Vector3D(0, 0, 0)); // vector-matrix multiplication
+		}
 
 		// 2. Near-Plane Clipping (w = Z_NEAR)
 		List<ClippedVertex> clippedVertices = clipPolygonAgainstPlane(vertices);
@@ -459,23 +1253,93 @@ public class Engine3D {
 		return null;
 	}
 
+	/**
+	 * Vertex stage: returns clip-space coordinates of a shared scene vertex, the vertex is transformed only once per frame
+	 */
+	private Vector3D projectVertex(int idx, Matrix4x4 matViewProj) {
+		int k = idx * 4;
+		if (sceneVertexData != null)
+			return projectVertexFloat(idx, k);
+		if (projectedFrame[idx] != frame) {
+			Vector3D v = sceneVertices[idx];
+			double[][] m = matViewProj.m;
+			projectedVertices[k] = v.x * m[0][0] + v.y * m[1][0] + v.z * m[2][0] + v.w * m[3][0];
+			projectedVertices[k + 1] = v.x * m[0][1] + v.y * m[1][1] + v.z * m[2][1] + v.w * m[3][1];
+			projectedVertices[k + 2] = v.x * m[0][2] + v.y * m[1][2] + v.z * m[2][2] + v.w * m[3][2];
+			projectedVertices[k + 3] = v.x * m[0][3] + v.y * m[1][3] + v.z * m[2][3] + v.w * m[3][3];
+			projectedFrame[idx] = frame;
+		}
+		return new Vector3D(projectedVertices[k], projectedVertices[k + 1], projectedVertices[k + 2], projectedVertices[k + 3]);
+	}
+
+	//vertex stage in float precision, the matrix of current frame is in viewProjData and w of scene vertices is 1
+	private Vector3D projectVertexFloat(int idx, int k) {
+		if (projectedFrame[idx] != frame) {
+			int j = idx * 3;
+			float x = sceneVertexData[j], y = sceneVertexData[j + 1], z = sceneVertexData[j + 2];
+			float[] m = viewProjData;
+			projectedData[k] = x * m[0] + y * m[4] + z * m[8] + m[12];
+			projectedData[k + 1] = x * m[1] + y * m[5] + z * m[9] + m[13];
+			projectedData[k + 2] = x * m[2] + y * m[6] + z * m[10] + m[14];
+			projectedData[k + 3] = x * m[3] + y * m[7] + z * m[11] + m[15];
+			projectedFrame[idx] = frame;
+		}
+		return new Vector3D(projectedData[k], projectedData[k + 1], projectedData[k + 2], projectedData[k + 3]);
+	}
+
 // --- CLIPPING UTILITIES ---
 
 	public class ClippedVertex	{
 		public Vector3D clipped;
 		public int polyVertexIndex; //value -1 used for interpolated vertex, otherwise is the index in the parent worldPoly
+		public int fromIndex, toIndex; //for interpolated vertex, indexes in the parent worldPoly of the clipped edge
+		public double weight; //for interpolated vertex, attribute = attribute[fromIndex] + weight * (attribute[toIndex] - attribute[fromIndex])
 
 		public ClippedVertex(Vector3D clipped, int polyVertexIndex) {
 			this.clipped = clipped;
 			this.polyVertexIndex = polyVertexIndex;
 		}
+
+		public ClippedVertex(Vector3D clipped, int fromIndex, int toIndex, double weight) {
+			this.clipped = clipped;
+			this.polyVertexIndex = -1;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.weight = weight;
+		}
+
+		/**
+		 * Returns the value of this vertex for an attribute given for each vertex of the parent worldPoly
+		 */
+		public double interpolate(double[] attributes) {
+			if (polyVertexIndex != -1)
+				return attributes[polyVertexIndex];
+			return attributes[fromIndex] + weight * (attributes[toIndex] - attributes[fromIndex]);
+		}
+
+		/**
+		 * Returns the color of this vertex from colors packed as 0xRRGGBB, given for each vertex of the parent worldPoly
+		 */
+		public int interpolateRGB(int[] rgb) {
+			if (polyVertexIndex != -1)
+				return rgb[polyVertexIndex];
+			int c1 = rgb[fromIndex], c2 = rgb[toIndex];
+			int r = (int) Math.round(((c1 >> 16) & 0xFF) + weight * (((c2 >> 16) & 0xFF) - ((c1 >> 16) & 0xFF)));
+			int g = (int) Math.round(((c1 >> 8) & 0xFF) + weight * (((c2 >> 8) & 0xFF) - ((c1 >> 8) & 0xFF)));
+			int b = (int) Math.round((c1 & 0xFF) + weight * ((c2 & 0xFF) - (c1 & 0xFF)));
+			return (r << 16) | (g << 8) | b;
+		}
 	}
 
 	/**
 	 * Clips a Polyface3D against the near plane (w >= Z_NEAR).
 	 * This is a simplified Sutherland-Hodgman for a single plane.
+	 * Interpolated vertices keep the indexes of the clipped edge and the interpolation weight, to interpolate vertex attributes.
+	 * If a view distance is set, the polygon is also clipped against the far plane (w <= viewDistance).
 	 */
 	protected List<ClippedVertex> clipPolygonAgainstPlane(Vector3D[] inputVertices) {
+		if (viewDistance != Double.POSITIVE_INFINITY)
+			return clipPolygonAgainstPlanes(inputVertices);
 		List<ClippedVertex> outputVertices = new ArrayList<>();
 		
 		// Loop over all edges of the input polygon
@@ -492,15 +1356,15 @@ public class Engine3D {
 				outputVertices.add(new ClippedVertex(v2, (i + 1) % inputVertices.length));
 			} else if (v1Inside) {
 				// Case 2: Going from inside to outside (keep intersection)
-				Vector3D intersection = intersectNearPlane(v1, v2);
-				if (intersection != null) {
-					outputVertices.add(new ClippedVertex(intersection, -1));
+				double t = nearPlaneWeight(v1, v2);
+				if (!Double.isNaN(t)) {
+					outputVertices.add(new ClippedVertex(interpolateNearPlane(v1, v2, t), i, (i + 1) % inputVertices.length, t));
 				}
 			} else if (v2Inside) {
 				// Case 3: Going from outside to inside (keep intersection and v2)
-				Vector3D intersection = intersectNearPlane(v1, v2);
-				if (intersection != null) {
-					outputVertices.add(new ClippedVertex(intersection, -1));
+				double t = nearPlaneWeight(v1, v2);
+				if (!Double.isNaN(t)) {
+					outputVertices.add(new ClippedVertex(interpolateNearPlane(v1, v2, t), i, (i + 1) % inputVertices.length, t));
 				}
 				outputVertices.add(new ClippedVertex(v2, (i + 1) % inputVertices.length));
 			}
@@ -514,6 +1378,37 @@ public class Engine3D {
 		return outputVertices;
 	}
 
+	/**
+	 * Clips a Polyface3D against the near plane and the far plane (Z_NEAR <= w <= viewDistance) in a single pass.
+	 * The planes are parallel, so each vertex of the result is an input vertex or the intersection of an input edge with one plane,
+	 * an edge crossing both planes gives two intersections, sorted along the edge.
+	 */
+	private List<ClippedVertex> clipPolygonAgainstPlanes(Vector3D[] inputVertices) {
+		List<ClippedVertex> outputVertices = new ArrayList<>();
+		for (int i = 0; i < inputVertices.length; i++) {
+			int j = (i + 1) % inputVertices.length;
+			Vector3D v1 = inputVertices[i];
+			Vector3D v2 = inputVertices[j];
+			double tNear = (v1.w >= Z_NEAR) != (v2.w >= Z_NEAR) ? planeWeight(v1, v2, Z_NEAR) : Double.NaN;
+			double tFar = (v1.w <= viewDistance) != (v2.w <= viewDistance) ? planeWeight(v1, v2, viewDistance) : Double.NaN;
+			if (!Double.isNaN(tNear) && !Double.isNaN(tFar) && tFar < tNear) {
+				outputVertices.add(new ClippedVertex(interpolatePlane(v1, v2, tFar, viewDistance), i, j, tFar));
+				outputVertices.add(new ClippedVertex(interpolatePlane(v1, v2, tNear, Z_NEAR), i, j, tNear));
+			} else {
+				if (!Double.isNaN(tNear))
+					outputVertices.add(new ClippedVertex(interpolatePlane(v1, v2, tNear, Z_NEAR), i, j, tNear));
+				if (!Double.isNaN(tFar))
+					outputVertices.add(new ClippedVertex(interpolatePlane(v1, v2, tFar, viewDistance), i, j, tFar));
+			}
+			if (v2.w >= Z_NEAR && v2.w <= viewDistance)
+				outputVertices.add(new ClippedVertex(v2, j));
+		}
+
+		if (outputVertices.size() < 3)
+			return null; // Clipped away completely
+		return outputVertices;
+	}
+
 	private final static double EPSILON = 1e-5;
 
 	/**
@@ -521,27 +1416,44 @@ public class Engine3D {
 	 * This uses linear interpolation in homogeneous space (clip space).
 	 */
 	protected static Vector3D intersectNearPlane(Vector3D v1, Vector3D v2) {
-		double t; // Intersection parameter
-		
-		// We clip against w = Z_NEAR.
+		double t = nearPlaneWeight(v1, v2); // Intersection parameter
+		if (Double.isNaN(t))
+			return null;
+		return interpolateNearPlane(v1, v2, t);
+	}
+
+	/**
+	 * Returns the intersection parameter t of segment (v1, v2) with the near plane, NaN if the segment is parallel to the plane.
+	 * Clip space is an affine image of world space, so t interpolates linearly any vertex attribute.
+	 */
+	protected static double nearPlaneWeight(Vector3D v1, Vector3D v2) {
+		return planeWeight(v1, v2, Z_NEAR);
+	}
+
+	// intersection parameter t of segment (v1, v2) with plane w = planeW, NaN if the segment is parallel to the plane
+	private static double planeWeight(Vector3D v1, Vector3D v2, double planeW) {
 		double dw = v2.w - v1.w;
 		// Check if the difference is non-zero to avoid division by zero
 		if (Math.abs(dw) > EPSILON) { 
-			t = (Z_NEAR - v1.w) / dw;
-		} else {
-			// Line is almost parallel to the clip plane (or both points are on it)
-			return null; 
+			double t = (planeW - v1.w) / dw;
+			// Clamp t for safety, although it should be in (0, 1) when clipping against Z_NEAR
+			return Math.max(0.0, Math.min(1.0, t));
 		}
+		// Line is almost parallel to the clip plane (or both points are on it)
+		return Double.NaN;
+	}
 
-		// Clamp t for safety, although it should be in (0, 1) when clipping against Z_NEAR
-		t = Math.max(0.0, Math.min(1.0, t));
+	private static Vector3D interpolateNearPlane(Vector3D v1, Vector3D v2, double t) {
+		return interpolatePlane(v1, v2, t, Z_NEAR);
+	}
 
+	private static Vector3D interpolatePlane(Vector3D v1, Vector3D v2, double t, double planeW) {
 		// Linear interpolation for all components (x, y, z, w)
 		double x = v1.x + t * (v2.x - v1.x);
 		double y = v1.y + t * (v2.y - v1.y);
 		double z = v1.z + t * (v2.z - v1.z);
 
-		return new Vector3D(x, y, z, Z_NEAR);
+		return new Vector3D(x, y, z, planeW);
 	}
 
 	private static void printOnce(String message, HashSet<String> messages, StringBuilder sb) {
@@ -552,7 +1464,8 @@ public class Engine3D {
 	}
 
 	/**
-     * Get information about current scene
+     * Get information about current scene, fullchecks counts the unconnected parts and checks the edges of each mesh once,
+	 * otherwise only the numbers of nodes, meshes, polygons and vertices are reported
 	 */
 	public String getInfo(boolean fullchecks) {
 		int n_nodes = sceneNodes.size();
@@ -561,6 +1474,7 @@ public class Engine3D {
 		int n_unconnectedParts = 0;
 		StringBuilder sb = new StringBuilder(64);
 		HashSet<String> messages = new HashSet<>();
+		IdentityHashMap<Mesh, Integer> checked = new IdentityHashMap<>();//unconnected parts of meshes already checked
 		for (Node node : sceneNodes) {
 			Mesh mesh = meshes.get(node.meshID);
 			if (mesh == null) {
@@ -568,21 +1482,34 @@ public class Engine3D {
 					printOnce("Error: unknown mesh id " + node.meshID, messages, sb);
 					continue;
 				} else mesh = Mesh.getShapeInstance(node.shape, node.shapeArguments);
+			} else {
+				if (mesh.lods != null)//levels of detail are looked up by id in setupScene()
+					for (String lod : mesh.lods)
+						if (meshes.get(lod) == null)
+							printOnce("Error: unknown level of detail " + lod + " of mesh " + mesh.id, messages, sb);
+				mesh = resolveMesh(mesh);
 			}
 			n_polygons += mesh.polygons.size();
-			n_vertices += mesh.vertices.length;
-			int n_unconnected = mesh.getNumberUnconnectedParts();
+			n_vertices += mesh.getVertexCount();
+			if (!fullchecks)
+				continue;//unconnected parts are counted only by full checks
+			Integer n_unconnected = checked.get(mesh);
+			if (n_unconnected != null) {//meshes shared by several nodes are checked once
+				n_unconnectedParts += n_unconnected;
+				continue;
+			}
+			n_unconnected = mesh.getNumberUnconnectedParts();
+			checked.put(mesh, n_unconnected);
 			n_unconnectedParts += n_unconnected;
-			if (fullchecks) {		
-				if (n_unconnected > 0)
-					printOnce("Warning: unconnected part found in mesh " + mesh.id, messages, sb);
+			if (n_unconnected > 0)
+				printOnce("Warning: unconnected part found in mesh " + mesh.id, messages, sb);
 
-				if (!mesh.checkCorrectness())
-					printOnce("Error found in mesh " + mesh.id, messages, sb);
+			Mesh.EdgeReport edges = mesh.getEdgeReport();
+			if (edges.duplicatedEdges.length > 0)
+				printOnce("Error found in mesh " + mesh.id + ", " + edges.duplicatedEdges.length + " edges with same direction in several polygons", messages, sb);
 
-				if (!mesh.checkManifold())
-					printOnce("Warning: mesh " + mesh.id + " is not manifold", messages, sb);			
-			}
+			if (edges.boundaryEdges.length > 0)
+				printOnce("Warning: mesh " + mesh.id + " is not manifold, " + edges.boundaryEdges.length + " boundary edges", messages, sb);
 		}
 		sb.append("Number of nodes: ").append(n_nodes).append('\n');
 		sb.append("Number of user defined meshes: ").append(meshes.size()).append('\n');
@@ -0,0 +1,155 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * InstancedMesh holds the polygons of a mesh and of its levels of detail in local space, shared by all nodes using the mesh, see MeshInstance.
+ * Polygons of convex meshes are drawn in any order after backface culling, other meshes are ordered by a BSP tree built once in local space.
+ * Instances with a mirrored world matrix use a copy of levels with reversed orientation of polygons, like the world polygons of mirrored nodes.
+ * v1.0 18-10-2026: first release
+ */
+final class InstancedMesh {
+	private final static double EPSILON = 1e-5; // Tolerance for floating point comparisons
+
+	final Level[] levels;
+
+	static final class Level {
+		final Vector3D[] vertices;// local vertices, including vertices added by the splits of the BSP tree
+		final Polyface3D[] polygons;// polygons in any order if the mesh is convex, otherwise null
+		final BSPNode tree;// BSP tree of polygons if the mesh is not convex, otherwise null
+		private Level reversed;// polygons with reversed orientation, created on first use
+
+		/**
+		 * Polygons shall have indexes of their vertices in vertexPool, vertexPool is extended by the splits of the BSP tree
+		 */
+		Level(List<Polyface3D> polygons, List<Vector3D> vertexPool) {
+			if (isConvex(polygons, vertexPool)) {
+				this.polygons = polygons.toArray(new Polyface3D[0]);
+				this.tree = null;
+			} else {
+				this.polygons = null;
+				this.tree = BSPNode.build(polygons, vertexPool);
+			}
+			this.vertices = vertexPool.toArray(new Vector3D[0]);
+		}
+
+		/**
+		 * Returns the level with reversed orientation of polygons, vertex i of a reversed polygon is vertex reverse(i, n) of the polygon
+		 */
+		Level getReversed() {
+			if (reversed == null) {
+				List<Polyface3D> polygons = new ArrayList<>();
+				if (tree != null)
+					tree.getPolygons(polygons);
+				else polygons.addAll(Arrays.asList(this.polygons));
+				for (int p = 0; p < polygons.size(); p++)
+					polygons.set(p, reverse(polygons.get(p)));
+				reversed = new Level(polygons, new ArrayList<>(Arrays.asList(vertices)));
+			}
+			return reversed;
+		}
+
+		private static Polyface3D reverse(Polyface3D poly) {
+			int n = poly.indexes.length;
+			Vector3D[] vertices = new Vector3D[n];
+			int[] indexes = new int[n];
+			for (int i = 0; i < n; i++) {
+				vertices[i] = poly.vertices[InstancedMesh.reverse(i, n)];
+				indexes[i] = poly.indexes[InstancedMesh.reverse(i, n)];
+			}
+			Polyface3D result = new Polyface3D(poly.color, vertices, indexes);
+			result.colorIndex = poly.colorIndex;
+			if (poly.vertexNormals != null) {
+				result.vertexNormals = new Vector3D[n];
+				for (int i = 0; i < n; i++)
+					result.vertexNormals[i] = poly.vertexNormals[InstancedMesh.reverse(i, n)];
+			}
+			if (poly.texture != null) {
+				result.texture = poly.texture;
+				result.u = InstancedMesh.reverse(poly.u);
+				result.v = InstancedMesh.reverse(poly.v);
+			}
+			return result;
+		}
+
+		//a mesh is convex if all vertices are behind or on the plane of each polygon, so front faces never overlap
+		private static boolean isConvex(List<Polyface3D> polygons, List<Vector3D> vertices) {
+			for (Polyface3D poly : polygons) {
+				Vector3D p = poly.vertices[0], n = poly.normal;
+				for (Vector3D v : vertices)
+					if ((v.x - p.x) * n.x + (v.y - p.y) * n.y + (v.z - p.z) * n.z > EPSILON)
+						return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+     * Index of vertex i of a polygon with n vertices in the polygon with reversed orientation, reversing twice returns the same polygon.
+	 * The first three vertices are the same ones in reversed order, so the normal is exactly the opposite one
+	 */
+	static int reverse(int i, int n) {
+		return (n + 2 - i) % n;
+	}
+
+	static double[] reverse(double[] values) {
+		int n = values.length;
+		double[] result = new double[n];
+		for (int i = 0; i < n; i++)
+			result[i] = values[reverse(i, n)];
+		return result;
+	}
+
+	InstancedMesh(Level[] levels) {
+		this.levels = levels;
+	}
+
+	/**
+     * Returns the bounding sphere in world space {x, y, z, radius} of the mesh transformed by worldMatrix, computed like the sphere of LODObject:
+	 * centered in the bounding box of level 0 and enclosing the vertices of all levels
+	 */
+	double[] getBoundingSphere(Matrix4x4 worldMatrix) {
+		double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+		double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		Vector3D w = new Vector3D(0, 0, 0);
+		for (Vector3D v : levels[0].vertices) {
+			worldMatrix.multiply(v, w);
+			min[0] = Math.min(min[0], w.x); max[0] = Math.max(max[0], w.x);
+			min[1] = Math.min(min[1], w.y); max[1] = Math.max(max[1], w.y);
+			min[2] = Math.min(min[2], w.z); max[2] = Math.max(max[2], w.z);
+		}
+		double x = (min[0] + max[0]) / 2, y = (min[1] + max[1]) / 2, z = (min[2] + max[2]) / 2;
+		double r2 = 0;
+		for (Level level : levels)
+			for (Vector3D v : level.vertices) {
+				worldMatrix.multiply(v, w);
+				r2 = Math.max(r2, (w.x - x) * (w.x - x) + (w.y - y) * (w.y - y) + (w.z - z) * (w.z - z));
+			}
+		return new double[] {x, y, z, Math.sqrt(r2)};
+	}
+}
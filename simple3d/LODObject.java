@@ -0,0 +1,125 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.List;
+
+/**
+ * LODObject is a node of the scene with several levels of detail, it is not split by the BSP tree:
+ * it is placed in the cell of the BSP tree containing its bounding sphere and the level of detail is selected at each frame
+ * from its projected size. Level 0 is the finest one, each next level is used when the projected size is halved.
+ * The polygons of an object are not sorted, so the meshes of levels shall be convex, like the native shapes.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: subclasses can generate the polygons of levels at each frame, see MeshInstance
+ */
+class LODObject {
+	final Polyface3D[][] levels;// world polygons of each level of detail, null if polygons are generated by a subclass
+	final double x, y, z, radius;// bounding sphere in world space
+	double sortKey;// squared distance from the camera, used to sort objects of the same cell
+
+	LODObject(List<List<Polyface3D>> levels) {
+		this.levels = new Polyface3D[levels.size()][];
+		for (int i = 0; i < this.levels.length; i++)
+			this.levels[i] = levels.get(i).toArray(new Polyface3D[0]);
+		// Bounding sphere centered in the bounding box of level 0
+		double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+		double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for (Polyface3D poly : this.levels[0])
+			for (Vector3D v : poly.vertices) {
+				min[0] = Math.min(min[0], v.x); max[0] = Math.max(max[0], v.x);
+				min[1] = Math.min(min[1], v.y); max[1] = Math.max(max[1], v.y);
+				min[2] = Math.min(min[2], v.z); max[2] = Math.max(max[2], v.z);
+			}
+		x = (min[0] + max[0]) / 2;
+		y = (min[1] + max[1]) / 2;
+		z = (min[2] + max[2]) / 2;
+		double r2 = 0;
+		for (Polyface3D[] level : this.levels)
+			for (Polyface3D poly : level)
+				for (Vector3D v : poly.vertices)
+					r2 = Math.max(r2, (v.x - x) * (v.x - x) + (v.y - y) * (v.y - y) + (v.z - z) * (v.z - z));
+		radius = Math.sqrt(r2);
+	}
+
+	LODObject(double x, double y, double z, double radius) {
+		this.levels = null;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = radius;
+	}
+
+	int getLevelCount() {
+		return levels.length;
+	}
+
+	/**
+	 * Adds polygons of the given level to drawList, in back to front order for a camera in cameraPos
+	 */
+	void addLevel(int level, Vector3D cameraPos, List<Polyface3D> drawList) {
+		for (Polyface3D poly : levels[level])
+			drawList.add(poly);
+	}
+
+	/**
+	 * Returns the level of detail for the camera: sizeScale is the projected size of a unit radius at unit distance
+	 * divided by the projected radius below which level 1 is used
+	 */
+	int selectLevel(Vector3D cameraPos, Vector3D viewDir, double sizeScale) {
+		if (viewDir == null)
+			return 0;
+		double depth = (x - cameraPos.x) * viewDir.x + (y - cameraPos.y) * viewDir.y + (z - cameraPos.z) * viewDir.z;
+		if (depth <= radius)
+			return 0;// camera is near or inside the object
+		double ratio = depth / (radius * sizeScale);// threshold / projected size
+		if (ratio <= 1)
+			return 0;
+		return Math.min(getLevelCount() - 1, 1 + Math.getExponent(ratio));// 1 + floor(log2(ratio))
+	}
+
+	/**
+	 * Adds polygons of the selected level to drawList, nothing is added if the object is beyond the far plane
+	 */
+	void addPolygons(Vector3D cameraPos, Vector3D viewDir, double maxDistance, double sizeScale, List<Polyface3D> drawList) {
+		if (maxDistance != Double.POSITIVE_INFINITY) {
+			double depth = (x - cameraPos.x) * viewDir.x + (y - cameraPos.y) * viewDir.y + (z - cameraPos.z) * viewDir.z;
+			if (depth - radius > maxDistance)
+				return;
+		}
+		addLevel(selectLevel(cameraPos, viewDir, sizeScale), cameraPos, drawList);
+	}
+
+	/**
+	 * Sorts objects back to front, by decreasing distance of their centers from the camera
+	 */
+	static void sort(List<LODObject> objects, Vector3D cameraPos) {
+		if (objects.size() < 2)
+			return;
+		for (LODObject object : objects) {
+			double dx = object.x - cameraPos.x, dy = object.y - cameraPos.y, dz = object.z - cameraPos.z;
+			object.sortKey = dx * dx + dy * dy + dz * dz;
+		}
+		objects.sort((o1, o2) -> Double.compare(o2.sortKey, o1.sortKey));
+	}
+}
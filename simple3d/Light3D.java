@@ -1,11 +1,47 @@
 package simple3d;
 
+/**
+ * Light source, either a point light or a directional light.
+ * v1.0.3 18-10-2026: added directional light
+ */
 public class Light3D {
-	final Vector3D lightPos;
+	final Vector3D lightPos;//position of point light, or unit vector pointing toward the light in case of directional light
 	final Color color;
+	final boolean directional;
 
 	public Light3D(Color color, double x, double y, double z) {
 		this.color = color;
 		this.lightPos = new Vector3D(x, y, z);
+		this.directional = false;
 	}
-}
+
+	private Light3D(Color color, Vector3D lightPos, boolean directional) {
+		this.color = color;
+		this.lightPos = lightPos;
+		this.directional = directional;
+	}
+
+	/**
+     * Creates a directional light (like the sun), (dx, dy, dz) is the direction of light rays
+	 */
+	public static Light3D createDirectional(Color color, double dx, double dy, double dz) {
+		Vector3D toLight = new Vector3D(-dx, -dy, -dz).normalize();
+		if (toLight.squaredMagnitude() == 0) throw new IllegalArgumentException("direction shall not be null");
+		return new Light3D(color, toLight, true);
+	}
+
+	public boolean isDirectional() {
+		return directional;
+	}
+
+	/**
+     * Returns direction of light rays for directional light, position for point light
+	 */
+	public Vector3D getVector() {
+		return directional ? new Vector3D(-lightPos.x, -lightPos.y, -lightPos.z) : lightPos.clone();
+	}
+
+	public Color getColor() {
+		return color;
+	}
+}
\ No newline at end of file
@@ -23,6 +23,7 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,6 +33,9 @@ import json.*;
 /**
  * Matrix4x4 is a 4x4 matrix, primarily used for 3D transformations.
  * v1.0 12-12-2025: first release
+ * v1.0.3 18-10-2026: added multiplyNormal()
+ *        18-10-2026: added determinant() and inverseAffine()
+ *        18-10-2026: added get() in float precision
  */
 public class Matrix4x4 implements Dumpable {
 	final double[][] m = new double[4][4];
@@ -157,6 +161,25 @@ public class Matrix4x4 implements Dumpable {
 		return result;
 	}
 
+	/**
+	 * Transforms normal n using the cofactors of the 3x3 rotation and scale part, result is normalized.
+	 * The cofactors transform normals consistently with the cross product of transformed edges, also with non-uniform scaling.
+	 */
+	public Vector3D multiplyNormal(Vector3D n, Vector3D result) {
+		double x = 0, y = 0, z = 0;
+		for (int r = 0; r < 3; r++) {
+			int r1 = (r + 1) % 3, r2 = (r + 2) % 3;
+			double c0 = m[r1][1] * m[r2][2] - m[r1][2] * m[r2][1];// cofactors of row r
+			double c1 = m[r1][2] * m[r2][0] - m[r1][0] * m[r2][2];
+			double c2 = m[r1][0] * m[r2][1] - m[r1][1] * m[r2][0];
+			double nr = r == 0 ? n.x : r == 1 ? n.y : n.z;
+			x += nr * c0;
+			y += nr * c1;
+			z += nr * c2;
+		}
+		return result.set(x, y, z).normalize();
+	}
+
 	/** Result matrix multiplication: result = this * other */
 	public void multiply(Matrix4x4 other, Matrix4x4 result) {
 		// Need temporary storage because 'result' might be 'this' or 'other'
@@ -233,6 +256,51 @@ public class Matrix4x4 implements Dumpable {
 		result.m[3][3] = 1.0;
 	}
 
+	/**
+	 * Copies the matrix in float precision to result, row by row: result[r * 4 + c] = m[r][c]
+	 */
+	public void get(float[] result) {
+		for (int r = 0; r < 4; r++)
+			for (int c = 0; c < 4; c++)
+				result[r * 4 + c] = (float) m[r][c];
+	}
+
+	/**
+	 * Returns the determinant of the 3x3 rotation and scale part, negative if the matrix reverses the orientation of polygons
+	 */
+	public double determinant() {
+		return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+			+ m[0][1] * (m[1][2] * m[2][0] - m[1][0] * m[2][2])
+			+ m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+	}
+
+	/**
+	 * Inverse of an affine transformation (rotation, scale and translation, last column 0, 0, 0, 1), result can be this matrix.
+	 * Unlike quickInverse(), the rotation and scale part is not required to be orthonormal
+	 */
+	public void inverseAffine(Matrix4x4 result) {
+		double det = determinant();
+		if (det == 0)
+			throw new IllegalArgumentException("matrix is not invertible");
+		double[][] inv = new double[3][3];
+		for (int r = 0; r < 3; r++) {// inverse is the transposed matrix of cofactors divided by determinant
+			int r1 = (r + 1) % 3, r2 = (r + 2) % 3;
+			for (int c = 0; c < 3; c++) {
+				int c1 = (c + 1) % 3, c2 = (c + 2) % 3;
+				inv[c][r] = (m[r1][c1] * m[r2][c2] - m[r1][c2] * m[r2][c1]) / det;
+			}
+		}
+		double t0 = m[3][0], t1 = m[3][1], t2 = m[3][2];
+		for (int r = 0; r < 3; r++) {
+			System.arraycopy(inv[r], 0, result.m[r], 0, 3);
+			result.m[r][3] = 0.0;
+		}
+		result.m[3][0] = -(t0 * inv[0][0] + t1 * inv[1][0] + t2 * inv[2][0]);
+		result.m[3][1] = -(t0 * inv[0][1] + t1 * inv[1][1] + t2 * inv[2][1]);
+		result.m[3][2] = -(t0 * inv[0][2] + t1 * inv[1][2] + t2 * inv[2][2]);
+		result.m[3][3] = 1.0;
+	}
+
 	// Helper for pointAt that returns a new matrix (used only in non-performance-critical setup)
 	public Matrix4x4 quickInverse() {
 		Matrix4x4 result = new Matrix4x4();
@@ -272,4 +340,15 @@ public class Matrix4x4 implements Dumpable {
 		}
 		return mat;
 	}
+
+	public void save(JSONWriter out) throws IOException {
+		out.beginArray();
+		for (int r = 0; r < 4; r++) {
+			out.beginArray();
+			for (int c = 0; c < 4; c++)
+				out.value(m[r][c]);
+			out.endArray();
+		}
+		out.endArray();
+	}
 }
@@ -23,24 +23,46 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
 
 import json.*;
 /**
- * Mesh is a collection of polygons. It is purely geometric data.
+ * Mesh is a collection of convex polygons. It is purely geometric data.
  * v1.0   12-12-2025: first release
  * v1.0.1 17-12-2025: new shape regularPolygon and new method extrudePolygonMesh to extrude polygons
+ * v1.0.3 18-10-2026: mesh can reference a library file using source
+ *        18-10-2026: optional compact storage of vertices
+ *        18-10-2026: smooth vertex normals computed once per mesh
+ *        18-10-2026: optional texture atlas addressed by texture coordinates of polygons
+ *        18-10-2026: optional levels of detail, native shapes sphere, cylinder and cone have 3 levels
+ *        18-10-2026: connected components computed with union-find
+ *        18-10-2026: edges checked with a primitive hash table, diagnostics of boundary and duplicated edges
+ *        18-10-2026: results of validation cached until the geometry is changed
+ *        18-10-2026: validation of polygons without allocations, in parallel for large meshes, optional in load()
+ *        18-10-2026: new method decimate() to reduce polygons by edge collapse
+ *        18-10-2026: concave polygons are split in convex polygons when the mesh is loaded or created
+ *        18-10-2026: thread safe bounded cache of shape instances, sphere, cylinder and cone accept argument N
+ *        18-10-2026: convex pieces of concave polygons are cached apart, polygons are kept as authored for save()
+ *        18-10-2026: planarity of polygons is checked as distance from the plane
  */
 public class Mesh implements Dumpable {
 	String id;
 	final List<Polygon3D> polygons = new ArrayList<>();
-	Vector3D[] vertices;
+	Vector3D[] vertices;//null in case of compact storage, use getVertex() to access vertices
+	String source;//optional path of library file holding geometry data, as written in json file
+	String sourcePath;//path of library file used for loading, relative source is resolved against folder of world file
+	Mesh resolved;//mesh loaded from library file, kept after first use so that the library is looked up once
+	String texture;//optional path of image file used as texture atlas by polygons with texture coordinates, as written in json file
+	String texturePath;//path of image file used for loading, relative texture is resolved against folder of world or library file
+	String[] lods;//optional ids of meshes used as coarser levels of detail, from finer to coarser
 
 	public enum Shape {
 		square,
@@ -52,7 +74,70 @@ public class Mesh implements Dumpable {
 		regularPolygon,
 	}
 
-	final static HashMap<Shape, Mesh> immutable_shapes = new HashMap<>();
+	/**
+	 * Storage of vertices: DOUBLE is the default, FLOAT and SHORT are compact formats relative to the bounding box of the mesh.
+	 * FLOAT takes 12 bytes per vertex, SHORT takes 6 bytes per vertex with 16 bits quantization over the bounding box,
+	 * SHORT is lossy, so it is recommended for large meshes made of triangles like terrains,
+	 * the original coordinates are not kept and save() writes the quantized vertices.
+	 */
+	public enum Storage {
+		DOUBLE,
+		FLOAT,
+		SHORT,
+	}
+
+	private Storage storage = Storage.DOUBLE;
+	private float[] floatVertices;//x, y, z relative to origin
+	private short[] shortVertices;//x, y, z quantized relative to origin
+	private double[] origin;//minimum corner of bounding box
+	private double[] step;//quantization step for SHORT storage
+
+	/**
+	 * Smooth normals of polygon corners: normals holds unique normals, indexes[p][c] is the index in normals of corner c of convex polygon p,
+	 * polygons are indexed as in the convex polygons used for rendering, where concave polygons are split.
+	 */
+	public static class VertexNormals {
+		public final Vector3D[] normals;
+		public final int[][] indexes;
+
+		VertexNormals(Vector3D[] normals, int[][] indexes) {
+			this.normals = normals;
+			this.indexes = indexes;
+		}
+	}
+
+	/**
+	 * Diagnostics of the edges of polygons, edges are pairs {from, to} of vertex indexes in the direction of the polygon.
+	 * boundaryEdges are directed edges not matched by an edge in the opposite direction, like the border of a hole,
+	 * duplicatedEdges are directed edges used more than once, like the edges of polygons with inconsistent orientation.
+	 */
+	public static class EdgeReport {
+		public final int[][] boundaryEdges;
+		public final int[][] duplicatedEdges;
+
+		EdgeReport(int[][] boundaryEdges, int[][] duplicatedEdges) {
+			this.boundaryEdges = boundaryEdges;
+			this.duplicatedEdges = duplicatedEdges;
+		}
+	}
+
+	private VertexNormals vertexNormals;//cached smooth normals
+	private double vertexNormalsAngle;//smoothing angle used for vertexNormals
+	private EdgeReport edgeReport;//cached diagnostics of edges
+	private int unconnectedParts = -1;//cached number of unconnected parts, -1 if not computed
+	private List<Polygon3D> convexPolygons;//cached convex polygons, same list as polygons if they are all convex
+
+	public final static int DEFAULT_SHAPE_CACHE_CAPACITY = 64;
+
+	private static int shapeCacheCapacity = DEFAULT_SHAPE_CACHE_CAPACITY;
+
+	//instances of native shapes keyed by shape and canonical arguments, the value holds level 0 only or all levels of detail
+	private final static LinkedHashMap<String, Mesh[]> shape_cache = new LinkedHashMap<String, Mesh[]>(16, 0.75f, true) {//access order
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Mesh[]> eldest) {
+			return size() > shapeCacheCapacity;
+		}
+	};
 
 	/**
      * Create a mesh from vertices and polygons
@@ -66,6 +151,41 @@ public class Mesh implements Dumpable {
 		return m;
 	}
 
+	/**
+     * Create a mesh referencing a library file, the geometry data is loaded on first use
+	 */
+	public static Mesh createMeshReference(String id, String source) {
+		Mesh m = new Mesh();
+		m.id = id;
+		m.source = source;
+		m.sourcePath = source;
+		return m;
+	}
+
+	/**
+     * Sets the image file used as texture by polygons with texture coordinates, null removes the texture
+	 */
+	public void setTexture(String texture) {
+		this.texture = texture;
+		this.texturePath = texture;
+	}
+
+	public String getTexture() {
+		return texture;
+	}
+
+	/**
+     * Sets the ids of meshes used as coarser levels of detail of this mesh, from finer to coarser, null removes them.
+	 * Meshes used as levels of detail shall be convex, as their polygons are not sorted
+	 */
+	public void setLevelsOfDetail(String... lods) {
+		this.lods = lods == null || lods.length == 0 ? null : lods.clone();
+	}
+
+	public String[] getLevelsOfDetail() {
+		return lods == null ? new String[0] : lods.clone();
+	}
+
 	/**
      * Create a mesh by extruding a mesh containing only one polygon
 	 * The original polygon is extruded along its normal
@@ -73,10 +193,10 @@ public class Mesh implements Dumpable {
 	 */
 	public static Mesh extrudePolygonMesh(String id, Mesh source, Double distance) {
 		if (source.polygons.size() > 1) throw new IllegalArgumentException("Too many polygons, only one allowed");
-		int n_source_vertices = source.vertices.length;
+		int n_source_vertices = source.getVertexCount();
 		Vector3D[] vertices = new Vector3D[n_source_vertices * 2];
 		for (int i = 0; i < n_source_vertices; i++)
-			vertices[i] = source.vertices[i].clone();
+			vertices[i] = source.getVertex(i);
 		
 		ArrayList<Polygon3D> polygons = new ArrayList<>();
         Polygon3D polygon = source.polygons.get(0);
@@ -94,7 +214,7 @@ public class Mesh implements Dumpable {
 		Integer[] vertex_indexes = new Integer[n_source_vertices];
 		for (int i = 0; i < n_source_vertices; i++) {
 			vertex_indexes[i] = polygon.vertex_indexes[i] + n_source_vertices;
-			Vector3D vertex = source.vertices[i].clone();
+			Vector3D vertex = source.getVertex(i);
 			vertex.add(N);
 			vertices[i + n_source_vertices] = vertex;
 		}
@@ -145,99 +265,488 @@ public class Mesh implements Dumpable {
 	}
 
 	/**
-     * Return a mesh as instance of shape using native format
+     * Return a mesh as instance of shape using native format. Instances are cached, nodes with the same shape and arguments share the same mesh.
+	 * Shapes sphere, cylinder and cone accept optional argument N, the number of sides around the axis (16 by default, multiple of 4 for sphere)
 	 */
 	public static Mesh getShapeInstance(Shape shape, JSONObject shapeArguments) {
-		if (shape.equals(Shape.regularPolygon))
-			return createRegularPolygon(shapeArguments);
-		if (immutable_shapes.isEmpty())	{
-			immutable_shapes.put(Shape.cube, createCube());
-			immutable_shapes.put(Shape.pyramid, createPyramid());
-			immutable_shapes.put(Shape.sphere, createSphere(4));//N4 = N / 4
-			immutable_shapes.put(Shape.cylinder, createCylinder(16));
-			immutable_shapes.put(Shape.cone, createCone(16));
-			immutable_shapes.put(Shape.square, createSquare());
+		int N = getShapeResolution(shape, shapeArguments);
+		String key = shape.name() + ':' + N;
+		synchronized (shape_cache) {
+			Mesh[] levels = shape_cache.get(key);
+			if (levels == null) {
+				levels = new Mesh[] {createShape(shape, N)};
+				shape_cache.put(key, levels);
+			}
+			return levels[0];
 		}
-		return immutable_shapes.get(shape);
 	}
 
-//simple test to verify that all polygons in the mesh have same orientation
-	public boolean checkCorrectness() {
-		HashSet<Integer> segments = new HashSet<>();
-		int n_vertices = vertices.length;
-		for (Polygon3D polygon: polygons) {
-			int prev = polygon.vertex_indexes[polygon.vertex_indexes.length - 1];//use last vertex as previous vertex of first one
-			for (Integer vidx: polygon.vertex_indexes) {
-				int segment = prev + vidx * n_vertices;
-				if (segments.contains(segment))
-					return false;
-				segments.add(segment);
-				prev = vidx;
+	/**
+     * Returns the levels of detail of a native shape, level 0 is the mesh returned by getShapeInstance() and next levels halve the tessellation.
+	 * Shapes without levels of detail return only level 0
+	 */
+	public static Mesh[] getShapeLevels(Shape shape, JSONObject shapeArguments) {
+		int N = getShapeResolution(shape, shapeArguments);
+		String key = shape.name() + ':' + N;
+		synchronized (shape_cache) {
+			Mesh[] levels = shape_cache.get(key);
+			boolean tessellated = shape == Shape.sphere || shape == Shape.cylinder || shape == Shape.cone;
+			if (levels == null || (levels.length == 1 && tessellated && N >= 8)) {
+				Mesh instance = levels == null ? createShape(shape, N) : levels[0];
+				List<Mesh> list = new ArrayList<>();
+				list.add(instance);
+				if (tessellated)//halve N while the shape stays valid
+					for (int n = N / 2; list.size() < 3 && n >= 4 && (shape != Shape.sphere || n % 4 == 0); n /= 2)
+						list.add(createShape(shape, n));
+				levels = list.toArray(new Mesh[0]);
+				shape_cache.put(key, levels);
 			}
+			return levels;
+		}
+	}
+
+	/**
+     * Sets maximum number of shape instances kept in cache
+	 */
+	public static void setShapeCacheCapacity(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity shall be greater than 0");
+		synchronized (shape_cache) {
+			shapeCacheCapacity = capacity;
+			while (shape_cache.size() > capacity)
+				shape_cache.remove(shape_cache.keySet().iterator().next());
+		}
+	}
+
+	//returns canonical argument N of shape, 0 for shapes without arguments
+	private static int getShapeResolution(Shape shape, JSONObject shapeArguments) {
+		JSONValue _N = shapeArguments == null ? null : shapeArguments.get("N");
+		switch (shape) {
+			case regularPolygon:
+				if (shapeArguments == null) throw new IllegalArgumentException("shapeArguments is required");
+				if (_N == null) throw new IllegalArgumentException("shapeArguments shall include N");
+				break;
+			case sphere:
+			case cylinder:
+			case cone:
+				if (_N == null)
+					return 16;
+				break;
+			default:
+				return 0;
+		}
+		if (!(_N instanceof JSONNumber)) throw new IllegalArgumentException("N shall be an integer");
+		try {
+			return ((BigDecimal) _N.toJava()).intValueExact();
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("N shall be an integer", e);
+		}
+	}
+
+	private static Mesh createShape(Shape shape, int N) {
+		switch (shape) {
+			case cube:
+				return createCube();
+			case pyramid:
+				return createPyramid();
+			case square:
+				return createSquare();
+			case sphere:
+				if (N % 4 != 0) throw new IllegalArgumentException("N of sphere shall be a multiple of 4");
+				return createSphere(N / 4);
+			case cylinder:
+				return createCylinder(N);
+			case cone:
+				return createCone(N);
+			case regularPolygon:
+				return createRegularPolygon(N);
+			default:
+				throw new IllegalArgumentException("unsupported shape " + shape);
+		}
+	}
+
+	public int getVertexCount() {
+		if (vertices != null)
+			return vertices.length;
+		return storage == Storage.FLOAT ? floatVertices.length / 3 : shortVertices.length / 3;
+	}
+
+	/**
+     * Returns vertex with index idx in result, works with any storage
+	 */
+	public Vector3D getVertex(int idx, Vector3D result) {
+		if (vertices != null)
+			return result.set(vertices[idx]);
+		int k = idx * 3;
+		if (storage == Storage.FLOAT)
+			return result.set(origin[0] + floatVertices[k], origin[1] + floatVertices[k + 1], origin[2] + floatVertices[k + 2]);
+		return result.set(origin[0] + (shortVertices[k] + 32768) * step[0], origin[1] + (shortVertices[k + 1] + 32768) * step[1], origin[2] + (shortVertices[k + 2] + 32768) * step[2]);
+	}
+
+	public Vector3D getVertex(int idx) {
+		return getVertex(idx, new Vector3D(0, 0, 0));
+	}
+
+	public Storage getStorage() {
+		return storage;
+	}
+
+	/**
+     * Changes storage of vertices, compact storage releases the Vector3D objects holding the vertices
+	 */
+	public void setStorage(Storage newStorage) {
+		if (newStorage == storage)
+			return;
+		invalidateCaches();//SHORT storage moves vertices
+		int n_vertices = getVertexCount();
+		if (vertices == null) {//decode compact storage
+			Vector3D[] decoded = new Vector3D[n_vertices];
+			for (int i = 0; i < n_vertices; i++)
+				decoded[i] = getVertex(i);
+			vertices = decoded;
+		}
+		floatVertices = null;
+		shortVertices = null;
+		origin = null;
+		step = null;
+		storage = newStorage;
+		if (newStorage == Storage.DOUBLE)
+			return;
+
+		double[] max = new double[]{-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+		origin = new double[]{Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+		for (Vector3D vertex: vertices) {
+			origin[0] = Math.min(origin[0], vertex.x); max[0] = Math.max(max[0], vertex.x);
+			origin[1] = Math.min(origin[1], vertex.y); max[1] = Math.max(max[1], vertex.y);
+			origin[2] = Math.min(origin[2], vertex.z); max[2] = Math.max(max[2], vertex.z);
+		}
+		if (newStorage == Storage.FLOAT) {
+			floatVertices = new float[n_vertices * 3];
+			for (int i = 0; i < n_vertices; i++) {
+				floatVertices[i * 3] = (float) (vertices[i].x - origin[0]);
+				floatVertices[i * 3 + 1] = (float) (vertices[i].y - origin[1]);
+				floatVertices[i * 3 + 2] = (float) (vertices[i].z - origin[2]);
+			}
+		} else {
+			step = new double[3];
+			for (int c = 0; c < 3; c++)
+				step[c] = (max[c] - origin[c]) / 65535;
+			shortVertices = new short[n_vertices * 3];
+			for (int i = 0; i < n_vertices; i++) {
+				shortVertices[i * 3] = quantize(vertices[i].x, 0);
+				shortVertices[i * 3 + 1] = quantize(vertices[i].y, 1);
+				shortVertices[i * 3 + 2] = quantize(vertices[i].z, 2);
+			}
+		}
+		vertices = null;
+	}
+
+	private short quantize(double value, int c) {
+		if (step[c] == 0)
+			return -32768;
+		return (short) (Math.round((value - origin[c]) / step[c]) - 32768);
+	}
+
+//hash of geometry data (vertices, polygon indexes and color indexes), meshes with same geometry have same hash
+	public int geometryHash() {
+		int n_vertices = getVertexCount();
+		int hash = n_vertices;
+		Vector3D vertex = new Vector3D(0, 0, 0);
+		for (int i = 0; i < n_vertices; i++) {
+			getVertex(i, vertex);
+			hash = 31 * hash + Double.hashCode(vertex.x + 0.0);//+ 0.0 turns -0.0 into 0.0
+			hash = 31 * hash + Double.hashCode(vertex.y + 0.0);
+			hash = 31 * hash + Double.hashCode(vertex.z + 0.0);
+		}
+		hash = 31 * hash + polygons.size();
+		for (Polygon3D polygon: polygons) {
+			hash = 31 * hash + Arrays.hashCode(polygon.vertex_indexes);
+			hash = 31 * hash + (polygon.colorIndex == null ? -1 : polygon.colorIndex);
+			hash = 31 * hash + Arrays.hashCode(polygon.u);
+			hash = 31 * hash + Arrays.hashCode(polygon.v);
+		}
+		hash = 31 * hash + Arrays.hashCode(lods);
+		return 31 * hash + Objects.hashCode(texture);
+	}
+
+//check if other mesh has exactly the same geometry data, mesh id is not compared
+	public boolean sameGeometry(Mesh other) {
+		int n_vertices = getVertexCount();
+		if (n_vertices != other.getVertexCount() || polygons.size() != other.polygons.size() || !Objects.equals(texture, other.texture)
+			|| !Arrays.equals(lods, other.lods))
+			return false;
+		Vector3D v1 = new Vector3D(0, 0, 0);
+		Vector3D v2 = new Vector3D(0, 0, 0);
+		for (int i = 0; i < n_vertices; i++) {
+			getVertex(i, v1);
+			other.getVertex(i, v2);
+			if (v1.x != v2.x || v1.y != v2.y || v1.z != v2.z)
+				return false;
+		}
+		for (int i = 0; i < polygons.size(); i++) {
+			Polygon3D p1 = polygons.get(i);
+			Polygon3D p2 = other.polygons.get(i);
+			if (!Arrays.equals(p1.vertex_indexes, p2.vertex_indexes) || !Objects.equals(p1.colorIndex, p2.colorIndex)
+				|| !Arrays.equals(p1.u, p2.u) || !Arrays.equals(p1.v, p2.v))
+				return false;
 		}
 		return true;
 	}
 
+//simple test to verify that all polygons in the mesh have same orientation
+	public boolean checkCorrectness() {
+		return getEdgeReport().duplicatedEdges.length == 0;
+	}
+
 //test to verify that the mesh is a closed surface without holes
 	public boolean checkManifold() {
-		HashSet<Integer> segments = new HashSet<>();
-		int n_vertices = vertices.length;
+		return getEdgeReport().boundaryEdges.length == 0;
+	}
+
+	/**
+     * Returns the diagnostics of the edges of polygons, computed once and cached.
+	 */
+	public synchronized EdgeReport getEdgeReport() {
+		if (edgeReport == null)
+			edgeReport = computeEdgeReport();
+		return edgeReport;
+	}
+
+	//single pass over the directed edges of polygons, then each distinct edge is compared with its opposite
+	private EdgeReport computeEdgeReport() {
+		int n_edges = 0;
+		for (Polygon3D polygon: polygons)
+			n_edges += polygon.vertex_indexes.length;
+		EdgeTable table = new EdgeTable(n_edges);
 		for (Polygon3D polygon: polygons) {
 			int prev = polygon.vertex_indexes[polygon.vertex_indexes.length - 1];//use last vertex as previous vertex of first one
-			for (Integer vidx: polygon.vertex_indexes) {
-				int anti_segment = vidx + prev * n_vertices;
-				if (segments.contains(anti_segment))
-					segments.remove(anti_segment);
-				else {
-					int segment = prev + vidx * n_vertices;
-					segments.add(segment);
-				}
+			for (int vidx: polygon.vertex_indexes) {
+				table.add(prev, vidx);
 				prev = vidx;
 			}
 		}
-		return segments.isEmpty();
+		long[] keys = table.keys();
+		Arrays.sort(keys);//deterministic order of diagnostics
+		int n_boundary = 0, n_duplicated = 0;
+		long[] boundary = new long[keys.length];
+		long[] duplicated = new long[keys.length];
+		for (long key: keys) {
+			int from = EdgeTable.from(key), to = EdgeTable.to(key);
+			int count = table.count(from, to);
+			if (count > 1)
+				duplicated[n_duplicated++] = key;
+			if (count > table.count(to, from))//occurrences not matched by the opposite edge
+				boundary[n_boundary++] = key;
+		}
+		return new EdgeReport(toPairs(boundary, n_boundary), toPairs(duplicated, n_duplicated));
 	}
 
-//get number of unconnected parts
-	public int getNumberUnconnectedParts() {
-		int n_vertices = vertices.length;
-		if (n_vertices < 2)
-			return 0;
-		HashMap<Integer, Integer> groups = new HashMap<>();
-		for (int i = 0; i < n_vertices; i++)
-			groups.put(i, i);
+	private static int[][] toPairs(long[] keys, int n) {
+		int[][] pairs = new int[n][];
+		for (int i = 0; i < n; i++)
+			pairs[i] = new int[] {EdgeTable.from(keys[i]), EdgeTable.to(keys[i])};
+		return pairs;
+	}
+
+//get number of unconnected parts, that is the number of connected components of vertices minus one
+	public synchronized int getNumberUnconnectedParts() {
+		if (unconnectedParts < 0) {
+			int n_vertices = getVertexCount();
+			if (n_vertices < 2)
+				return unconnectedParts = 0;
+			int[] parent = connectVertices(n_vertices);
+			int n_components = 0;
+			for (int i = 0; i < n_vertices; i++)
+				if (parent[i] == i)
+					n_components++;
+			unconnectedParts = n_components - 1;
+		}
+		return unconnectedParts;
+	}
 
+	/**
+     * Returns the connected components of the mesh, each component is the sorted array of indexes of its vertices.
+	 * Vertices are connected by the edges of polygons, a vertex not used by any polygon is a component by itself.
+	 * Components are ordered by their lowest vertex index.
+	 */
+	public int[][] getConnectedComponents() {
+		int n_vertices = getVertexCount();
+		int[] parent = connectVertices(n_vertices);
+		int[] label = new int[n_vertices];//label of component for roots, in order of lowest vertex index
+		int[] sizes = new int[n_vertices];
+		int n_components = 0;
+		for (int i = 0; i < n_vertices; i++) {
+			int root = find(parent, i);
+			if (root == i)
+				label[i] = n_components++;
+			sizes[label[root]]++;
+		}
+		int[][] components = new int[n_components][];
+		for (int c = 0; c < n_components; c++)
+			components[c] = new int[sizes[c]];
+		Arrays.fill(sizes, 0, n_components, 0);
+		for (int i = 0; i < n_vertices; i++) {
+			int c = label[find(parent, i)];
+			components[c][sizes[c]++] = i;
+		}
+		return components;
+	}
+
+	//union-find of vertices joined by edges of polygons, with path compression and union by rank
+	//returns the parent array fully compressed, so parent[i] is the root of the component of vertex i
+	private int[] connectVertices(int n_vertices) {
+		int[] parent = new int[n_vertices];
+		byte[] rank = new byte[n_vertices];//rank is bounded by log2(n_vertices)
+		for (int i = 0; i < n_vertices; i++)
+			parent[i] = i;
 		for (Polygon3D polygon: polygons) {
 			int prev = polygon.vertex_indexes[polygon.vertex_indexes.length - 1];//use last vertex as previous vertex of first one
-			for (Integer vidx: polygon.vertex_indexes) {
-				final int group_prev = groups.get(prev);
-				final int group_vidx = groups.get(vidx);
-				if (group_prev < group_vidx) {
-					if (vidx == group_vidx)
-						groups.put(vidx, group_prev);
+			for (int vidx: polygon.vertex_indexes) {
+				int root_prev = find(parent, prev);
+				int root_vidx = find(parent, vidx);
+				if (root_prev != root_vidx) {
+					if (rank[root_prev] < rank[root_vidx])
+						parent[root_prev] = root_vidx;
+					else if (rank[root_prev] > rank[root_vidx])
+						parent[root_vidx] = root_prev;
 					else {
-						final int prevf = prev;
-						groups.replaceAll((key, value) -> value == group_vidx ? group_prev : value);
-					}
-				} else {
-					if (prev == group_prev)
-						groups.put(prev, group_vidx);
-					else {
-						groups.replaceAll((key, value) -> value == group_prev ? group_vidx : value);
+						parent[root_vidx] = root_prev;
+						rank[root_prev]++;
 					}
 				}
 				prev = vidx;
 			}
 		}
-		int n_groups = 0;
-		int prev = groups.get(0);
-		for (int i = 1; i < n_vertices; i++) {
-			int group = groups.get(i);
-			if (group != prev)
-				n_groups++;
-			prev = group;
+		for (int i = 0; i < n_vertices; i++)
+			parent[i] = find(parent, i);
+		return parent;
+	}
+
+	private static int find(int[] parent, int i) {
+		int root = i;
+		while (parent[root] != root)
+			root = parent[root];
+		while (parent[i] != root) {//path compression
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	/**
+     * Returns a reduced copy of the mesh made of triangles, with at most targetPolygons polygons or until the error reaches maxError (a distance).
+	 * See MeshDecimator, the mesh itself is returned if it cannot be reduced.
+	 */
+	public Mesh decimate(int targetPolygons, double maxError) {
+		return MeshDecimator.decimate(this, targetPolygons, maxError);
+	}
+
+	/**
+     * Returns smooth normals of polygon corners, computed once and cached until a different smoothingAngle is requested.
+	 * The normal of a corner is the area weighted average of the normals of the polygons sharing the vertex,
+	 * polygons forming an angle greater than smoothingAngle (degrees) with the polygon of the corner are excluded (hard edges).
+	 */
+	public synchronized VertexNormals getVertexNormals(double smoothingAngle) {
+		if (vertexNormals == null || vertexNormalsAngle != smoothingAngle) {
+			vertexNormals = computeVertexNormals(smoothingAngle);
+			vertexNormalsAngle = smoothingAngle;
+		}
+		return vertexNormals;
+	}
+
+	/**
+     * Returns the polygons with concave polygons split in convex polygons, computed once and cached, see ConvexDecomposer.
+	 * They are used for rendering and decimation, while polygons are kept as authored for save() and validation
+	 */
+	synchronized List<Polygon3D> getConvexPolygons() {
+		if (convexPolygons == null)
+			convexPolygons = ConvexDecomposer.decompose(this);
+		return convexPolygons;
+	}
+
+	//drops the results computed from vertices and polygons, called when the geometry is changed
+	private synchronized void invalidateCaches() {
+		convexPolygons = null;
+		vertexNormals = null;
+		edgeReport = null;
+		unconnectedParts = -1;
+	}
+
+	private VertexNormals computeVertexNormals(double smoothingAngle) {
+		List<Polygon3D> polygons = getConvexPolygons();//normals are used by the polygons drawn
+		int n_vertices = getVertexCount();
+		int n_polygons = polygons.size();
+		Vector3D[] points = new Vector3D[n_vertices];
+		for (int i = 0; i < n_vertices; i++)
+			points[i] = getVertex(i);
+
+		// Face normals using Newell's method, the length of the normal is twice the area of the polygon
+		Vector3D[] faceNormals = new Vector3D[n_polygons];
+		Vector3D[] unitNormals = new Vector3D[n_polygons];
+		int[] start = new int[n_vertices + 1];// polygons sharing vertex v are in incidentPolygon[start[v]..start[v + 1]-1]
+		for (int p = 0; p < n_polygons; p++) {
+			Integer[] vertex_indexes = polygons.get(p).vertex_indexes;
+			int n = vertex_indexes.length;
+			double x = 0, y = 0, z = 0;
+			for (int i = 0; i < n; i++) {
+				Vector3D a = points[vertex_indexes[i]];
+				Vector3D b = points[vertex_indexes[(i + 1) % n]];
+				x += (a.y - b.y) * (a.z + b.z);
+				y += (a.z - b.z) * (a.x + b.x);
+				z += (a.x - b.x) * (a.y + b.y);
+				start[vertex_indexes[i] + 1]++;
+			}
+			faceNormals[p] = new Vector3D(x, y, z);
+			unitNormals[p] = new Vector3D(x, y, z).normalize();
+		}
+		for (int v = 0; v < n_vertices; v++)
+			start[v + 1] += start[v];
+		int[] fill = Arrays.copyOf(start, n_vertices);
+		int[] incidentPolygon = new int[start[n_vertices]];
+		int[] incidentCorner = new int[start[n_vertices]];
+		int[][] indexes = new int[n_polygons][];
+		for (int p = 0; p < n_polygons; p++) {
+			Integer[] vertex_indexes = polygons.get(p).vertex_indexes;
+			indexes[p] = new int[vertex_indexes.length];
+			for (int c = 0; c < vertex_indexes.length; c++) {
+				int k = fill[vertex_indexes[c]]++;
+				incidentPolygon[k] = p;
+				incidentCorner[k] = c;
+			}
+		}
+
+		// Corners of the same vertex having the same normal share it
+		double cosThreshold = Math.cos(Math.toRadians(smoothingAngle)) - EPSILON;
+		ArrayList<Vector3D> normals = new ArrayList<>();
+		for (int v = 0; v < n_vertices; v++) {
+			int first = normals.size();
+			for (int k = start[v]; k < start[v + 1]; k++) {
+				Vector3D u = unitNormals[incidentPolygon[k]];
+				double x = 0, y = 0, z = 0;
+				for (int j = start[v]; j < start[v + 1]; j++) {
+					int q = incidentPolygon[j];
+					if (u.dot(unitNormals[q]) >= cosThreshold) {
+						x += faceNormals[q].x;
+						y += faceNormals[q].y;
+						z += faceNormals[q].z;
+					}
+				}
+				Vector3D normal = new Vector3D(x, y, z).normalize();
+				if (normal.squaredMagnitude() == 0)
+					normal.set(u);
+				int idx = first;
+				while (idx < normals.size() && !equalNormals(normals.get(idx), normal))
+					idx++;
+				if (idx == normals.size())
+					normals.add(normal);
+				indexes[incidentPolygon[k]][incidentCorner[k]] = idx;
+			}
 		}
-		return n_groups;
+		return new VertexNormals(normals.toArray(new Vector3D[0]), indexes);
+	}
+
+	private static boolean equalNormals(Vector3D a, Vector3D b) {
+		return a.x == b.x && a.y == b.y && a.z == b.z;
 	}
 
 	private final static double EPSILON = 1e-5; // Tolerance for floating point comparisons
@@ -253,53 +762,76 @@ public class Mesh implements Dumpable {
 		for (Vector3D vertex: vertices)
 			if (vertex == null)
 				throw new IllegalArgumentException("Null vertex found in mesh " + id);
-		for (Polygon3D polygon: polygons) {
-			if (polygon.vertex_indexes.length < 3)
-				throw new IllegalArgumentException("Incorrect polygon with only " + polygon.vertex_indexes.length + " vertices found in mesh " + id);
-			int prev = polygon.vertex_indexes[polygon.vertex_indexes.length - 1];//use last vertex as previous vertex of first one
-			for (Integer vidx: polygon.vertex_indexes) {
-				if (vidx >= vertices.length)
-					throw new IllegalArgumentException("Incorrect polygon with too high vertex index " + vidx + " found in mesh " + id);
-				Vector3D difference = vertices[prev].subtract(vertices[vidx], new Vector3D(0, 0, 0));
-				double distance = difference.squaredMagnitude();
-				if (distance < EPSILON) throw new IllegalArgumentException("Incorrect polygon with too near consecutive vertices found in mesh " + id + ", conflict between vertices[" + prev + "]=" + vertices[prev] + " and vertices[" + vidx + "]=" + vertices[vidx]);
-				prev = vidx;
-			}
+		int n_polygons = polygons.size();
+		int invalid = -1;//index of first invalid polygon
+		if (n_polygons < PARALLEL_CHECK) {
+			for (int p = 0; p < n_polygons && invalid < 0; p++)
+				if (checkPolygon(polygons.get(p)) != null)
+					invalid = p;
+		} else {//chunks of polygons are checked in parallel, the error reported is the one of the first invalid polygon as in serial check
+			int n_chunks = (n_polygons + PARALLEL_CHECK - 1) / PARALLEL_CHECK;
+			invalid = IntStream.range(0, n_chunks).parallel().map(c -> {
+				int end = Math.min(n_polygons, (c + 1) * PARALLEL_CHECK);
+				for (int p = c * PARALLEL_CHECK; p < end; p++)
+					if (checkPolygon(polygons.get(p)) != null)
+						return p;
+				return Integer.MAX_VALUE;
+			}).min().getAsInt();
+			if (invalid == Integer.MAX_VALUE)
+				invalid = -1;
+		}
+		if (invalid >= 0)
+			throw new IllegalArgumentException(checkPolygon(polygons.get(invalid)));
+	}
 
-			Vector3D pivot = null;
-			Vector3D normal = null;
-			int n = polygon.vertex_indexes.length;
-			for (int i = 0; i < n; i++) {
-				Vector3D P0 = vertices[polygon.vertex_indexes[i]];
-				Vector3D P1 = vertices[polygon.vertex_indexes[(i + 1) % n]];
-				Vector3D P2 = vertices[polygon.vertex_indexes[(i + 2) % n]];
-
-				// Edges E01 = P1 - P0 and E12 = P2 - P1
-				Vector3D E01 = P1.subtract(P0, new Vector3D(0, 0, 0));
-				Vector3D E12 = P2.subtract(P1, new Vector3D(0, 0, 0));
-
-				// Calculate the potential normal N = E01 x E12
-				Vector3D N = E01.cross(E12);
-
-				// Check if the magnitude of the cross product is non-zero (i.e., not collinear)
-				if (N.squaredMagnitude() > EPSILON) {
-					// Found three non-collinear points. This defines our reference plane.
-					pivot = P0;
-					normal = N;
-					break;
-				}
-			}
-			if (normal == null)
-				throw new IllegalArgumentException("Degenerate polygon with only collinear vertices, found in mesh " + id);
-			for (int i = 0; i < n; i++) {
-				// Vector from the reference point (pivot) to the current point (P).
-				Vector3D Pivot_to_P = pivot.subtract(vertices[polygon.vertex_indexes[i]], new Vector3D(0, 0, 0));
+	private final static int PARALLEL_CHECK = 2048;//minimum number of polygons checked in parallel, also size of chunks
 
-				// The dot product of this vector and the normal must be zero (within EPSILON).
-				if (Math.abs(Pivot_to_P.dot(normal)) > EPSILON)
-					throw new IllegalArgumentException("Not planar polygon found in mesh " + id);
-			}
+	//returns the error found in polygon, null if polygon is correct; vertices are read in place without allocations
+	private String checkPolygon(Polygon3D polygon) {
+		Integer[] vertex_indexes = polygon.vertex_indexes;
+		int n = vertex_indexes.length;
+		if (n < 3)
+			return "Incorrect polygon with only " + n + " vertices found in mesh " + id;
+		if (polygon.u != null && (polygon.u.length != n || polygon.v.length != n))
+			return "Incorrect polygon with " + polygon.u.length + " texture coordinates for " + n + " vertices found in mesh " + id;
+		int prev = vertex_indexes[n - 1];//use last vertex as previous vertex of first one
+		for (int i = 0; i < n; i++) {
+			int vidx = vertex_indexes[i];
+			if (vidx >= vertices.length)
+				return "Incorrect polygon with too high vertex index " + vidx + " found in mesh " + id;
+			Vector3D a = vertices[prev], b = vertices[vidx];
+			double dx = a.x - b.x, dy = a.y - b.y, dz = a.z - b.z;
+			if (dx * dx + dy * dy + dz * dz < EPSILON)
+				return "Incorrect polygon with too near consecutive vertices found in mesh " + id + ", conflict between vertices[" + prev + "]=" + a + " and vertices[" + vidx + "]=" + b;
+			prev = vidx;
 		}
+
+		// Reference plane defined by three non-collinear consecutive points P0, P1, P2, with normal N = (P1 - P0) x (P2 - P1)
+		Vector3D pivot = null;
+		double nx = 0, ny = 0, nz = 0;
+		for (int i = 0; i < n && pivot == null; i++) {
+			Vector3D P0 = vertices[vertex_indexes[i]];
+			Vector3D P1 = vertices[vertex_indexes[(i + 1) % n]];
+			Vector3D P2 = vertices[vertex_indexes[(i + 2) % n]];
+			double ax = P1.x - P0.x, ay = P1.y - P0.y, az = P1.z - P0.z;
+			double bx = P2.x - P1.x, by = P2.y - P1.y, bz = P2.z - P1.z;
+			nx = ay * bz - az * by;
+			ny = az * bx - ax * bz;
+			nz = ax * by - ay * bx;
+			//compare the sine of the corner angle, so that fine tessellations are not taken as collinear
+			if (nx * nx + ny * ny + nz * nz > EPSILON * (ax * ax + ay * ay + az * az) * (bx * bx + by * by + bz * bz))
+				pivot = P0;
+		}
+		if (pivot == null)
+			return "Degenerate polygon with only collinear vertices, found in mesh " + id;
+		double tolerance = EPSILON * Math.sqrt(nx * nx + ny * ny + nz * nz);//N is not normalized
+		for (int i = 0; i < n; i++) {
+			// The distance of each point from the plane shall be within EPSILON
+			Vector3D P = vertices[vertex_indexes[i]];
+			if (Math.abs((pivot.x - P.x) * nx + (pivot.y - P.y) * ny + (pivot.z - P.z) * nz) > tolerance)
+				return "Not planar polygon found in mesh " + id;
+		}
+		return null;
 	}
 
 	private static Mesh createPyramid() {
@@ -499,11 +1031,7 @@ public class Mesh implements Dumpable {
 		return m;
 	}
 
-	private static Mesh createRegularPolygon(JSONObject shapeArguments) {
-		if (shapeArguments == null) throw new IllegalArgumentException("shapeArguments is required");
-		JSONValue _N = shapeArguments.get("N");
-		if (_N == null) throw new IllegalArgumentException("shapeArguments shall include N");
-		int N = ((BigDecimal) _N.toJava()).intValueExact();
+	private static Mesh createRegularPolygon(int N) {
 		if (N < 3) throw new IllegalArgumentException("N shall be greater or equal to 3");
 
 		Mesh m = new Mesh("native:regularPolygon", N);
@@ -528,11 +1056,42 @@ public class Mesh implements Dumpable {
 
 	protected Mesh() {}
 	public void load(JSONValue data) {
+		load(data, true);
+	}
+
+	/**
+     * Loads the mesh from json data, validation of polygons can be skipped for trusted files
+	 */
+	public void load(JSONValue data, boolean validate) {
 		JSONObject mesh = (JSONObject) data;
+		invalidateCaches();
 		id = (String) mesh.get("id").toJava();
+		texture = texturePath = null;
+		lods = null;
+		resolved = null;
+		JSONValue _source = mesh.get("source");
+		if (_source != null) {//geometry data is held by library file
+			source = (String) _source.toJava();
+			sourcePath = source;
+			vertices = null;
+			polygons.clear();
+			return;
+		}
 		
+		JSONValue _texture = mesh.get("texture");
+		if (_texture != null)
+			texture = texturePath = (String) _texture.toJava();
+		JSONArray _lods = (JSONArray) mesh.get("lods");
+		if (_lods != null) {
+			lods = new String[_lods.size()];
+			for (int i = 0; i < lods.length; i++)
+				lods[i] = (String) _lods.get(i).toJava();
+		} else lods = null;
 		JSONArray vert = (JSONArray) mesh.get("vertices");
 		int n = vert.size();
+		storage = Storage.DOUBLE;
+		floatVertices = null;
+		shortVertices = null;
 		vertices = new Vector3D[n];
 		for (int i = 0; i < n; i++) {
 			Vector3D vet = new Vector3D();
@@ -548,25 +1107,74 @@ public class Mesh implements Dumpable {
 			poly.mesh = this; // Polygon3D needs its mesh reference
 			polygons.add(poly);
 		}
-		sanityCheck();//just in case
+		if (validate)
+			sanityCheck();//just in case
 	}
 
 	public JSONValue save() {
 		LinkedHashMap<String, Object> mesh = new LinkedHashMap<>();
 		mesh.put("type", "mesh");
 		mesh.put("id", id);
+		if (source != null) {
+			mesh.put("source", source);
+			return new JSONObject(mesh);
+		}
 		
 		JSONArray vert = new JSONArray();
-        for (Vector3D vertex : vertices) {
-            vert.add(vertex.save());
-        }
+		int n_vertices = getVertexCount();
+		for (int i = 0; i < n_vertices; i++) {
+			vert.add(getVertex(i).save());
+		}
 		mesh.put("vertices", vert);
 		JSONArray polys = new JSONArray();
 		for (Polygon3D polygon: polygons) {
 			polys.add(polygon.save());
 		}
 		mesh.put("polygons", polys);
+		if (texture != null)
+			mesh.put("texture", texture);
+		if (lods != null) {
+			JSONArray _lods = new JSONArray();
+			for (String lod : lods)
+				_lods.add(new JSONString(lod));
+			mesh.put("lods", _lods);
+		}
 
 		return new JSONObject(mesh);
 	}
+
+	public void save(JSONWriter out) throws IOException {
+		save(out, id);
+	}
+
+	//writes the mesh with given id, used for meshes shared by several ids
+	void save(JSONWriter out, String id) throws IOException {
+		out.beginObject();
+		out.key("type").value("mesh");
+		out.key("id").value(id);
+		if (source != null) {
+			out.key("source").value(source);
+			out.endObject();
+			return;
+		}
+		out.key("vertices").beginArray();
+		int n_vertices = getVertexCount();
+		Vector3D vertex = new Vector3D(0, 0, 0);
+		for (int i = 0; i < n_vertices; i++)
+			getVertex(i, vertex).save(out);
+		out.endArray();
+		out.key("polygons").beginArray();
+		for (Polygon3D polygon: polygons)
+			polygon.save(out);
+		out.endArray();
+		if (texture != null)
+			out.key("texture").value(texture);
+		if (lods != null) {
+			out.key("lods").beginArray();
+			for (String lod : lods)
+				out.value(lod);
+			out.endArray();
+		}
+		out.endObject();
+	}
 }
\ No newline at end of file
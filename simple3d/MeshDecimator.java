@@ -0,0 +1,448 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import json.*;
+
+/**
+ * MeshDecimator reduces the number of polygons of a mesh by edge collapse, using quadric error metrics (Garland-Heckbert).
+ * Polygons are split in triangles, so the result is made of triangles that are always planar and convex.
+ * The error of a vertex is the sum of squared distances from the planes of the original triangles merged in it,
+ * borders of the mesh and edges between polygons of different colors are kept by additional planes orthogonal to the surface.
+ * Collapses are taken from a heap in order of increasing error, collapses folding triangles or leaving too small triangles are rejected.
+ * Texture coordinates are not supported, meshes with textured polygons are rejected.
+ * Usage as command line tool: java simple3d.MeshDecimator input.json.gz output.json.gz ratio [maxError]
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: meshes are read through their convex polygons, concave polygons are supported
+ */
+public class MeshDecimator {
+	private final static double BORDER_WEIGHT = 1000;// weight of planes keeping borders and color edges
+	private final static double MIN_COS = 0.2;// minimum cosine between normals of a triangle before and after a collapse
+	private final static double MIN_SIZE = 1e-4;// minimum squared length of edges and squared double area of triangles, above EPSILON of Mesh
+
+	// vertices
+	private final double[] px, py, pz;
+	private final double[] quadric;// 10 coefficients of symmetric matrix for each vertex: aa ab ac ad bb bc bd cc cd dd
+	private final int[] version;// incremented when the vertex moves, -1 when the vertex is removed
+	private final int[][] vertexTriangles;// triangles using each vertex, may include removed triangles
+	private final int[] n_vertexTriangles;
+	private final int[] mark;// marks of vertices used in link test
+	private int markStamp = 0;
+
+	// triangles
+	private final int[] corners;// 3 vertex indexes for each triangle
+	private final Integer[] colors;
+	private final double[] nx, ny, nz;// unit normal of each triangle
+	private final boolean[] removed;
+	private int n_alive;
+
+	private final PriorityQueue<Collapse> heap = new PriorityQueue<>();
+	private final double[] x = new double[3], y = new double[3], z = new double[3];// corners of a moved triangle
+
+	private static class Collapse implements Comparable<Collapse> {
+		final int a, b, versionA, versionB;
+		final double x, y, z, cost;
+
+		Collapse(int a, int b, int versionA, int versionB, double x, double y, double z, double cost) {
+			this.a = a; this.b = b;
+			this.versionA = versionA; this.versionB = versionB;
+			this.x = x; this.y = y; this.z = z;
+			this.cost = cost;
+		}
+
+		@Override
+		public int compareTo(Collapse other) {
+			return Double.compare(cost, other.cost);
+		}
+	}
+
+	/**
+     * Returns a reduced mesh with at most targetPolygons triangles, stopping earlier if the error of next collapse exceeds maxError.
+	 * maxError is a distance: the error of a collapse is the square root of the sum of squared distances from the original planes.
+	 * The given mesh is not modified, it is returned as it is if the reduced mesh would not have less polygons.
+	 */
+	public static Mesh decimate(Mesh mesh, int targetPolygons, double maxError) {
+		if (mesh.source != null)
+			throw new IllegalArgumentException("geometry of mesh " + mesh.id + " is held by library file " + mesh.source);
+		for (Polygon3D polygon: mesh.polygons)
+			if (polygon.u != null)
+				throw new IllegalArgumentException("decimation of mesh " + mesh.id + " with texture coordinates is not supported");
+		MeshDecimator decimator = new MeshDecimator(mesh);
+		decimator.collapse(Math.max(targetPolygons, 1), maxError * maxError);
+		if (decimator.n_alive >= mesh.polygons.size())
+			return mesh;
+		Mesh result = decimator.toMesh(mesh.id);
+		result.texture = mesh.texture;
+		result.texturePath = mesh.texturePath;
+		result.lods = mesh.lods;
+		return result;
+	}
+
+	private MeshDecimator(Mesh mesh) {
+		int n_vertices = mesh.getVertexCount();
+		px = new double[n_vertices];
+		py = new double[n_vertices];
+		pz = new double[n_vertices];
+		Vector3D vertex = new Vector3D(0, 0, 0);
+		for (int i = 0; i < n_vertices; i++) {
+			mesh.getVertex(i, vertex);
+			px[i] = vertex.x;
+			py[i] = vertex.y;
+			pz[i] = vertex.z;
+		}
+		// Fan triangulation of convex polygons, triangles without area are skipped
+		List<Polygon3D> polygons = mesh.getConvexPolygons();
+		int n_triangles = 0;
+		for (Polygon3D polygon: polygons)
+			n_triangles += polygon.vertex_indexes.length - 2;
+		int[] triangles = new int[n_triangles * 3];
+		Integer[] triangleColors = new Integer[n_triangles];
+		n_triangles = 0;
+		for (Polygon3D polygon: polygons) {
+			Integer[] vertex_indexes = polygon.vertex_indexes;
+			for (int i = 1; i < vertex_indexes.length - 1; i++) {
+				int k = n_triangles * 3;
+				triangles[k] = vertex_indexes[0];
+				triangles[k + 1] = vertex_indexes[i];
+				triangles[k + 2] = vertex_indexes[i + 1];
+				if (squaredCross(triangles[k], triangles[k + 1], triangles[k + 2]) > 0)
+					triangleColors[n_triangles++] = polygon.colorIndex;
+			}
+		}
+		corners = Arrays.copyOf(triangles, n_triangles * 3);
+		colors = Arrays.copyOf(triangleColors, n_triangles);
+		nx = new double[n_triangles];
+		ny = new double[n_triangles];
+		nz = new double[n_triangles];
+		removed = new boolean[n_triangles];
+		n_alive = n_triangles;
+
+		version = new int[n_vertices];
+		mark = new int[n_vertices];
+		n_vertexTriangles = new int[n_vertices];
+		for (int c: corners)
+			n_vertexTriangles[c]++;
+		vertexTriangles = new int[n_vertices][];
+		for (int i = 0; i < n_vertices; i++)
+			vertexTriangles[i] = new int[n_vertexTriangles[i]];
+		Arrays.fill(n_vertexTriangles, 0);
+		for (int t = 0; t < n_triangles; t++)
+			for (int c = 0; c < 3; c++) {
+				int vertex_index = corners[t * 3 + c];
+				vertexTriangles[vertex_index][n_vertexTriangles[vertex_index]++] = t;
+			}
+
+		// Quadrics of planes of triangles
+		quadric = new double[n_vertices * 10];
+		for (int t = 0; t < n_triangles; t++) {
+			updateNormal(t);
+			int a = corners[t * 3];
+			double d = -(nx[t] * px[a] + ny[t] * py[a] + nz[t] * pz[a]);
+			for (int c = 0; c < 3; c++)
+				addPlane(corners[t * 3 + c], nx[t], ny[t], nz[t], d, 1);
+		}
+		// Quadrics of planes orthogonal to the surface along borders and color edges
+		for (int t = 0; t < n_triangles; t++)
+			for (int c = 0; c < 3; c++) {
+				int a = corners[t * 3 + c], b = corners[t * 3 + (c + 1) % 3];
+				int opposite = findTriangle(b, a);
+				if (opposite < 0 || (opposite > t && !Objects.equals(colors[t], colors[opposite]))) {//color edges are counted once
+					double ex = px[b] - px[a], ey = py[b] - py[a], ez = pz[b] - pz[a];
+					double ox = ey * nz[t] - ez * ny[t], oy = ez * nx[t] - ex * nz[t], oz = ex * ny[t] - ey * nx[t];
+					double length = Math.sqrt(ox * ox + oy * oy + oz * oz);
+					if (length == 0)
+						continue;
+					ox /= length; oy /= length; oz /= length;
+					double d = -(ox * px[a] + oy * py[a] + oz * pz[a]);
+					addPlane(a, ox, oy, oz, d, BORDER_WEIGHT);
+					addPlane(b, ox, oy, oz, d, BORDER_WEIGHT);
+				}
+			}
+		// Candidate collapses of all edges, each edge is pushed once
+		for (int t = 0; t < n_triangles; t++)
+			for (int c = 0; c < 3; c++) {
+				int a = corners[t * 3 + c], b = corners[t * 3 + (c + 1) % 3];
+				if (a < b || findTriangle(b, a) < 0)
+					push(a, b);
+			}
+	}
+
+	private void collapse(int targetTriangles, double maxCost) {
+		while (n_alive > targetTriangles && !heap.isEmpty()) {
+			Collapse collapse = heap.poll();
+			if (version[collapse.a] != collapse.versionA || version[collapse.b] != collapse.versionB)
+				continue;// stale candidate, one vertex has been moved or removed
+			if (collapse.cost > maxCost)
+				break;
+			if (isValid(collapse))
+				apply(collapse);
+		}
+	}
+
+	// vertex b is removed and vertex a is moved to the position of collapse
+	private boolean isValid(Collapse collapse) {
+		int a = collapse.a, b = collapse.b;
+		// Link condition: vertices adjacent to both a and b shall be the opposite vertices of triangles sharing edge a-b
+		markStamp++;
+		int n_shared = 0;
+		for (int i = 0; i < n_vertexTriangles[a]; i++) {
+			int t = vertexTriangles[a][i];
+			if (removed[t])
+				continue;
+			if (contains(t, b))
+				n_shared++;
+			for (int c = 0; c < 3; c++)
+				mark[corners[t * 3 + c]] = markStamp;
+		}
+		int n_common = 0;
+		markStamp++;
+		for (int i = 0; i < n_vertexTriangles[b]; i++) {
+			int t = vertexTriangles[b][i];
+			if (removed[t])
+				continue;
+			for (int c = 0; c < 3; c++) {
+				int w = corners[t * 3 + c];
+				if (w != a && w != b && mark[w] == markStamp - 1) {
+					mark[w] = markStamp;// counted once
+					n_common++;
+				}
+			}
+		}
+		if (n_shared == 0 || n_common != n_shared)
+			return false;
+		// Triangles moved by the collapse shall not fold nor become too small
+		return checkMoved(a, b, collapse) && checkMoved(b, a, collapse);
+	}
+
+	private boolean checkMoved(int vertex, int other, Collapse collapse) {
+		for (int i = 0; i < n_vertexTriangles[vertex]; i++) {
+			int t = vertexTriangles[vertex][i];
+			if (removed[t] || contains(t, other))
+				continue;
+			for (int c = 0; c < 3; c++) {
+				int w = corners[t * 3 + c];
+				boolean moved = w == vertex;
+				x[c] = moved ? collapse.x : px[w];
+				y[c] = moved ? collapse.y : py[w];
+				z[c] = moved ? collapse.z : pz[w];
+			}
+			for (int c = 0; c < 3; c++) {
+				int next = (c + 1) % 3;
+				double dx = x[next] - x[c], dy = y[next] - y[c], dz = z[next] - z[c];
+				if (dx * dx + dy * dy + dz * dz < MIN_SIZE)
+					return false;
+			}
+			double ax = x[1] - x[0], ay = y[1] - y[0], az = z[1] - z[0];
+			double bx = x[2] - x[0], by = y[2] - y[0], bz = z[2] - z[0];
+			double cx = ay * bz - az * by, cy = az * bx - ax * bz, cz = ax * by - ay * bx;
+			double size = cx * cx + cy * cy + cz * cz;
+			if (size < MIN_SIZE || cx * nx[t] + cy * ny[t] + cz * nz[t] < MIN_COS * Math.sqrt(size))
+				return false;
+		}
+		return true;
+	}
+
+	private void apply(Collapse collapse) {
+		int a = collapse.a, b = collapse.b;
+		px[a] = collapse.x;
+		py[a] = collapse.y;
+		pz[a] = collapse.z;
+		for (int k = 0; k < 10; k++)
+			quadric[a * 10 + k] += quadric[b * 10 + k];
+		for (int i = 0; i < n_vertexTriangles[b]; i++) {
+			int t = vertexTriangles[b][i];
+			if (removed[t])
+				continue;
+			if (contains(t, a)) {
+				removed[t] = true;
+				n_alive--;
+			} else {
+				for (int c = 0; c < 3; c++)
+					if (corners[t * 3 + c] == b)
+						corners[t * 3 + c] = a;
+				addTriangle(a, t);
+			}
+		}
+		version[b] = -1;
+		version[a]++;
+		// Drop removed triangles from vertex a, update normals and candidates of edges of a
+		int n = 0;
+		int[] list = vertexTriangles[a];
+		markStamp++;
+		for (int i = 0; i < n_vertexTriangles[a]; i++) {
+			int t = list[i];
+			if (removed[t])
+				continue;
+			list[n++] = t;
+			updateNormal(t);
+			for (int c = 0; c < 3; c++) {
+				int w = corners[t * 3 + c];
+				if (w != a && mark[w] != markStamp) {
+					mark[w] = markStamp;
+					push(a, w);
+				}
+			}
+		}
+		n_vertexTriangles[a] = n;
+	}
+
+	private Mesh toMesh(String id) {
+		int n_vertices = px.length;
+		int[] newIndex = new int[n_vertices];
+		Arrays.fill(newIndex, -1);
+		List<Vector3D> vertices = new ArrayList<>();
+		List<Polygon3D> polygons = new ArrayList<>();
+		for (int t = 0; t < removed.length; t++) {
+			if (removed[t])
+				continue;
+			Integer[] vertex_indexes = new Integer[3];
+			for (int c = 0; c < 3; c++) {
+				int w = corners[t * 3 + c];
+				if (newIndex[w] < 0) {
+					newIndex[w] = vertices.size();
+					vertices.add(new Vector3D(px[w], py[w], pz[w]));
+				}
+				vertex_indexes[c] = newIndex[w];
+			}
+			Polygon3D polygon = new Polygon3D(null, vertex_indexes);
+			polygon.colorIndex = colors[t];
+			polygons.add(polygon);
+		}
+		return Mesh.createMesh(id, vertices.toArray(new Vector3D[0]), polygons);
+	}
+
+	//pushes the collapse of edge a-b at the position of minimum error
+	private void push(int a, int b) {
+		double[] q = new double[10];
+		for (int k = 0; k < 10; k++)
+			q[k] = quadric[a * 10 + k] + quadric[b * 10 + k];
+		// Minimum of quadric solving the 3x3 linear system by Cramer's rule, accepted if not too far from the edge
+		double det = q[0] * (q[4] * q[7] - q[5] * q[5]) - q[1] * (q[1] * q[7] - q[5] * q[2]) + q[2] * (q[1] * q[5] - q[4] * q[2]);
+		double ex = px[b] - px[a], ey = py[b] - py[a], ez = pz[b] - pz[a];
+		double edge2 = ex * ex + ey * ey + ez * ez;
+		double bestX = 0, bestY = 0, bestZ = 0, bestCost = Double.POSITIVE_INFINITY;
+		if (Math.abs(det) > 1e-12) {
+			double x = -(q[3] * (q[4] * q[7] - q[5] * q[5]) - q[1] * (q[6] * q[7] - q[5] * q[8]) + q[2] * (q[6] * q[5] - q[4] * q[8])) / det;
+			double y = -(q[0] * (q[6] * q[7] - q[8] * q[5]) - q[3] * (q[1] * q[7] - q[5] * q[2]) + q[2] * (q[1] * q[8] - q[6] * q[2])) / det;
+			double z = -(q[0] * (q[4] * q[8] - q[5] * q[6]) - q[1] * (q[1] * q[8] - q[6] * q[2]) + q[3] * (q[1] * q[5] - q[4] * q[2])) / det;
+			double mx = x - (px[a] + px[b]) / 2, my = y - (py[a] + py[b]) / 2, mz = z - (pz[a] + pz[b]) / 2;
+			if (mx * mx + my * my + mz * mz <= edge2) {
+				bestX = x; bestY = y; bestZ = z;
+				bestCost = error(q, x, y, z);
+			}
+		}
+		if (bestCost == Double.POSITIVE_INFINITY) {// singular system, like flat regions: best of end points and middle point
+			for (int i = 0; i <= 2; i++) {
+				double x = px[a] + ex * i / 2, y = py[a] + ey * i / 2, z = pz[a] + ez * i / 2;
+				double cost = error(q, x, y, z);
+				if (cost < bestCost) {
+					bestX = x; bestY = y; bestZ = z;
+					bestCost = cost;
+				}
+			}
+		}
+		heap.add(new Collapse(a, b, version[a], version[b], bestX, bestY, bestZ, Math.max(bestCost, 0)));
+	}
+
+	private static double error(double[] q, double x, double y, double z) {
+		return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+			+ q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+			+ q[7] * z * z + 2 * q[8] * z + q[9];
+	}
+
+	private void addPlane(int vertex, double a, double b, double c, double d, double weight) {
+		int k = vertex * 10;
+		quadric[k] += weight * a * a; quadric[k + 1] += weight * a * b; quadric[k + 2] += weight * a * c; quadric[k + 3] += weight * a * d;
+		quadric[k + 4] += weight * b * b; quadric[k + 5] += weight * b * c; quadric[k + 6] += weight * b * d;
+		quadric[k + 7] += weight * c * c; quadric[k + 8] += weight * c * d;
+		quadric[k + 9] += weight * d * d;
+	}
+
+	private void addTriangle(int vertex, int t) {
+		if (n_vertexTriangles[vertex] == vertexTriangles[vertex].length)
+			vertexTriangles[vertex] = Arrays.copyOf(vertexTriangles[vertex], Math.max(4, n_vertexTriangles[vertex] * 2));
+		vertexTriangles[vertex][n_vertexTriangles[vertex]++] = t;
+	}
+
+	private void updateNormal(int t) {
+		int a = corners[t * 3], b = corners[t * 3 + 1], c = corners[t * 3 + 2];
+		double ax = px[b] - px[a], ay = py[b] - py[a], az = pz[b] - pz[a];
+		double bx = px[c] - px[a], by = py[c] - py[a], bz = pz[c] - pz[a];
+		double x = ay * bz - az * by, y = az * bx - ax * bz, z = ax * by - ay * bx;
+		double length = Math.sqrt(x * x + y * y + z * z);
+		nx[t] = x / length;
+		ny[t] = y / length;
+		nz[t] = z / length;
+	}
+
+	private double squaredCross(int a, int b, int c) {
+		double ax = px[b] - px[a], ay = py[b] - py[a], az = pz[b] - pz[a];
+		double bx = px[c] - px[a], by = py[c] - py[a], bz = pz[c] - pz[a];
+		double x = ay * bz - az * by, y = az * bx - ax * bz, z = ax * by - ay * bx;
+		return x * x + y * y + z * z;
+	}
+
+	private boolean contains(int t, int vertex) {
+		return corners[t * 3] == vertex || corners[t * 3 + 1] == vertex || corners[t * 3 + 2] == vertex;
+	}
+
+	//returns a triangle not removed having directed edge from-to, -1 if not found
+	private int findTriangle(int from, int to) {
+		for (int i = 0; i < n_vertexTriangles[from]; i++) {
+			int t = vertexTriangles[from][i];
+			if (removed[t])
+				continue;
+			for (int c = 0; c < 3; c++)
+				if (corners[t * 3 + c] == from && corners[t * 3 + (c + 1) % 3] == to)
+					return t;
+		}
+		return -1;
+	}
+
+	/**
+     * Command line tool: decimates the meshes of a world file and writes the result, nodes, lights and userdata are kept
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.out.println("Usage: java simple3d.MeshDecimator input.json.gz output.json.gz ratio [maxError]");
+			System.out.println("ratio: target number of polygons relative to the original mesh, like 0.25");
+			return;
+		}
+		double ratio = Double.parseDouble(args[2]);
+		double maxError = args.length > 3 ? Double.parseDouble(args[3]) : Double.POSITIVE_INFINITY;
+		Engine3D engine = new Engine3D(false);
+		engine.setMeshDeduplication(false);
+		engine.setVertexStorage(Mesh.Storage.DOUBLE, 0);//vertices are written back, lossy storage is not used
+		JSONObject userdata = engine.importFile(args[0]);
+		int removed = engine.decimateMeshes(ratio, maxError);
+		engine.exportFile(args[1], userdata);
+		System.out.println("Removed " + removed + " polygons, output written to " + args[1]);
+	}
+}
@@ -0,0 +1,114 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MeshInstance is a node of the scene drawn from the polygons of an InstancedMesh shared with other nodes, it is placed in the BSP tree like LODObject.
+ * The instance holds only the node, for its world matrix and colors, and the inverse of the world matrix: at each frame the camera is transformed
+ * to local space, back faces are culled and the polygons of the selected level are transformed to world space.
+ * Polygons are created at each frame, so their shading colors are not cached.
+ * v1.0 18-10-2026: first release
+ */
+final class MeshInstance extends LODObject {
+	private final InstancedMesh mesh;
+	final Node node;
+	private final Matrix4x4 inverse = new Matrix4x4();// world space to local space
+	private final boolean mirrored;// the world matrix reverses the orientation of polygons, reversed levels are used
+	private final Vector3D localCamera = new Vector3D(0, 0, 0);
+
+	MeshInstance(InstancedMesh mesh, Node node) {
+		this(mesh, node, mesh.getBoundingSphere(node.worldMatrix));
+	}
+
+	private MeshInstance(InstancedMesh mesh, Node node, double[] sphere) {
+		super(sphere[0], sphere[1], sphere[2], sphere[3]);
+		this.mesh = mesh;
+		this.node = node;
+		node.worldMatrix.inverseAffine(inverse);
+		mirrored = node.worldMatrix.determinant() < 0;
+		if (mirrored)// reversed levels are built with the scene, not while rendering
+			for (InstancedMesh.Level level : mesh.levels)
+				level.getReversed();
+	}
+
+	@Override
+	int getLevelCount() {
+		return mesh.levels.length;
+	}
+
+	@Override
+	void addLevel(int level, Vector3D cameraPos, List<Polyface3D> drawList) {
+		InstancedMesh.Level l = mirrored ? mesh.levels[level].getReversed() : mesh.levels[level];
+		inverse.multiply(cameraPos, localCamera);
+		Vector3D[] worldVertices = new Vector3D[l.vertices.length];// vertices are transformed on first use
+		if (l.tree == null) {
+			for (Polyface3D poly : l.polygons)
+				addPolygon(poly, worldVertices, drawList);
+		} else {
+			List<Polyface3D> ordered = new ArrayList<>();
+			l.tree.traverse(localCamera, ordered);
+			for (Polyface3D poly : ordered)
+				addPolygon(poly, worldVertices, drawList);
+		}
+	}
+
+	//adds local polygon transformed to world space if it faces the camera, polygons of reversed levels are reversed again
+	private void addPolygon(Polyface3D local, Vector3D[] worldVertices, List<Polyface3D> drawList) {
+		Vector3D p = local.vertices[0], n = local.normal;
+		if ((localCamera.x - p.x) * n.x + (localCamera.y - p.y) * n.y + (localCamera.z - p.z) * n.z <= 0)
+			return;// back face
+		int n_vertices = local.indexes.length;
+		Vector3D[] vertices = new Vector3D[n_vertices];
+		for (int i = 0; i < n_vertices; i++) {
+			int k = mirrored ? InstancedMesh.reverse(i, n_vertices) : i;
+			int idx = local.indexes[k];
+			if (worldVertices[idx] == null)
+				worldVertices[idx] = node.worldMatrix.multiply(local.vertices[k], new Vector3D(0, 0, 0));
+			vertices[i] = worldVertices[idx];
+		}
+		Polyface3D poly = new Polyface3D(getColor(local.colorIndex), vertices, null);
+		if (local.vertexNormals != null) {
+			poly.vertexNormals = new Vector3D[n_vertices];
+			for (int i = 0; i < n_vertices; i++)
+				poly.vertexNormals[i] = node.worldMatrix.multiplyNormal(local.vertexNormals[mirrored ? InstancedMesh.reverse(i, n_vertices) : i], new Vector3D(0, 0, 0));
+		}
+		if (local.texture != null) {// texture coordinates are immutable, they are shared with the local polygon
+			poly.texture = local.texture;
+			poly.u = mirrored ? InstancedMesh.reverse(local.u) : local.u;
+			poly.v = mirrored ? InstancedMesh.reverse(local.v) : local.v;
+		}
+		drawList.add(poly);
+	}
+
+	private Color getColor(int colorIndex) {
+		if (colorIndex < 0)
+			return node.color;
+		if (node.colorList != null && colorIndex < node.colorList.length)
+			return node.colorList[colorIndex];
+		return Color.GRAY;//default color
+	}
+}
@@ -0,0 +1,121 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import json.*;
+
+/**
+ * MeshLibrary loads meshes from library files referenced by the "source" field of a mesh.
+ * Decoded meshes are kept in a LRU cache shared by all Engine3D instances, keyed by path of library file and mesh id,
+ * so that a library file referenced by several worlds is parsed only once.
+ * When a library file is parsed, all its meshes are stored in the cache.
+ * v1.0 18-10-2026: first release
+ */
+public class MeshLibrary {
+	public final static int DEFAULT_CAPACITY = 256;
+
+	private static int capacity = DEFAULT_CAPACITY;
+
+	private final static LinkedHashMap<String, Mesh> cache = new LinkedHashMap<String, Mesh>(16, 0.75f, true) {//access order
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Mesh> eldest) {
+			return size() > capacity;
+		}
+	};
+
+	private MeshLibrary() {}
+
+	/**
+     * Returns the mesh with given id from library file, the library file is loaded only if the mesh is not in cache
+	 */
+	public static synchronized Mesh getMesh(String path, String id) throws JSONException, IOException {
+		String canonicalPath = new File(path).getCanonicalPath();
+		String key = getKey(canonicalPath, id);
+		Mesh mesh = cache.get(key);
+		if (mesh == null) {
+			mesh = loadLibrary(canonicalPath, id);
+			if (mesh == null)
+				throw new IOException("mesh " + id + " not found in library file " + path);
+		}
+		return mesh;
+	}
+
+	/**
+     * Sets maximum number of meshes kept in cache
+	 */
+	public static synchronized void setCapacity(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity shall be greater than 0");
+		MeshLibrary.capacity = capacity;
+		while (cache.size() > capacity)
+			cache.remove(cache.keySet().iterator().next());
+	}
+
+	public static synchronized int size() {
+		return cache.size();
+	}
+
+	public static synchronized void clear() {
+		cache.clear();
+	}
+
+	private static String getKey(String canonicalPath, String id) {
+		return canonicalPath + '#' + id;
+	}
+
+	//parse library file and store all its meshes in cache, returns the mesh with given id or null if not found
+	private static Mesh loadLibrary(String canonicalPath, String id) throws JSONException, IOException {
+		JSONObject library = (JSONObject) Engine3D.parseFile(canonicalPath);
+		JSONValue _type = library.get("type");
+		if (_type == null)
+			throw new IOException("missing element 'type' in library file " + canonicalPath);
+		String type = (String) _type.toJava();
+		if (!type.equals("library") && !type.equals("world"))
+			throw new IOException("unsupported type: " + type + " in library file " + canonicalPath);
+
+		Mesh result = null;
+		JSONArray _meshes = (JSONArray) library.get("meshes");
+		if (_meshes != null) {
+			int n_meshes = _meshes.size();
+			for (int i = 0; i < n_meshes; i++) {
+				Mesh mesh = new Mesh();
+				mesh.load(_meshes.get(i));
+				if (mesh.source != null)
+					throw new IOException("nested source not supported, found in mesh " + mesh.id + " of library file " + canonicalPath);
+				if (mesh.texture != null)//relative path of texture is resolved against the folder of library file
+					mesh.texturePath = Engine3D.resolvePath(new File(canonicalPath).getParentFile(), mesh.texture);
+				if (mesh.id.equals(id))
+					result = mesh;
+				else cache.put(getKey(canonicalPath, mesh.id), mesh);
+			}
+		}
+		if (result != null)
+			cache.put(getKey(canonicalPath, id), result);//put requested mesh as last one, so it is the most recently used
+		return result;
+	}
+}
@@ -23,6 +23,7 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.LinkedHashMap;
 
@@ -194,4 +195,34 @@ public class Node implements Dumpable {
 		
 		return new JSONObject(node);
 	}
+
+	@Override
+	public void save(JSONWriter out) throws IOException {
+		out.beginObject();
+		out.key("type").value("node");
+		out.key("id").value(id);
+		if (meshID != null)
+			out.key("meshID").value(meshID);
+		else if (shape != null) {
+			out.key("shape").value(shape.toString());
+			if (shapeArguments != null)
+				out.key("shapeArguments").value(shapeArguments);
+		} else throw new RuntimeException("invalid data: either meshID or shape shall be defined");
+
+		if (color != null)
+			out.key("color").value(color.toString());
+
+		if (colorList != null) {
+			out.key("colorList").beginArray();
+			for (Color value : colorList)
+				value.save(out);
+			out.endArray();
+		}
+
+		if (!worldMatrix.isIdentity()) {
+			out.key("transformationMatrix");
+			worldMatrix.save(out);
+		}
+		out.endObject();
+	}
 }
\ No newline at end of file
@@ -24,23 +24,68 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 package simple3d;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 3D polygon for internal processing. All vertices shall be coplanar.
  * v1.0 12-12-2025: first release
+ * v1.0.3 18-10-2026: optional indexes of vertices shared with other polygons
+ *        18-10-2026: cache of flat shading color
+ *        18-10-2026: optional smooth vertex normals and cache of vertex shading colors
+ *        18-10-2026: shadow mask of static lights
+ *        18-10-2026: optional texture and texture coordinates
+ *        18-10-2026: fog factor of last rendered frame
+ *        18-10-2026: index of polygon color in the color list of node, used by instanced meshes
  */
 public class Polyface3D {
 	final Vector3D[] vertices;//vertices shall be considered as immutable, in case value is changed, normal shall be re-computed again
+	final int[] indexes;//optional, indexes of vertices in the vertex pool shared by the polygons of the scene, null if vertices are not shared
 	final Color color;
 	final Vector3D normal = new Vector3D();//value shall be updated in case of vertices are changed
+	int shadedRGB;//cached flat shading color, packed as 0xRRGGBB
+	int shadedVersion;//light version used to compute shadedRGB, 0 means not computed
+	long shadowMask;//bit i is set if the polygon is in the shadow of light i, see ShadowBuilder
+	Vector3D[] vertexNormals;//optional smooth normals of vertices, null means that the polygon normal is used for all vertices
+	int[] vertexRGB;//cached vertex shading colors, packed as 0xRRGGBB
+	int vertexShadedVersion;//light version used to compute vertexRGB
+	Texture texture;//optional texture, multiplied by shading colors
+	double[] u, v;//texture coordinates of vertices, not null if texture is not null
+	float fogFactor = 1;//fog factor at the distance of the polygon in last rendered frame, 1 means no fog
+	int colorIndex = -1;//index of color in the color list of node, -1 means the color of node
 
 	public Polyface3D(Color color, Vector3D... vertices) {
+		this(color, vertices, null);
+	}
+
+	public Polyface3D(Color color, Vector3D[] vertices, int[] indexes) {
 		this.vertices = vertices;
+		this.indexes = indexes;
 		this.color = color;
 		calculateNormal(normal);
 	}
 
+	/**
+     * Returns the texture of polygon, null if the polygon is not textured
+	 */
+	public Texture getTexture() {
+		return texture;
+	}
+
+	/**
+     * Returns texture coordinates u of vertices, the array shall not be modified
+	 */
+	public double[] getU() {
+		return u;
+	}
+
+	/**
+     * Returns texture coordinates v of vertices, the array shall not be modified
+	 */
+	public double[] getV() {
+		return v;
+	}
+
 	// Constants for classification relative to the splitter
 	private final static double EPSILON = 1e-5; // Tolerance for floating point comparisons
 	public final static int COPLANAR = 0;
@@ -138,8 +183,24 @@ public class Polyface3D {
 	 * Clips a Polyface3D against the plane defined by the splitter polygon (Sutherland-Hodgman for two outputs).
 	 */
 	public void split(Polyface3D splitter, List<Polyface3D> frontList, List<Polyface3D> backList) {
+		split(splitter, frontList, backList, null);
+	}
+
+	/**
+	 * Clips a Polyface3D against the plane defined by the splitter polygon (Sutherland-Hodgman for two outputs).
+	 * If vertexPool is not null and the polygon has shared vertices, the resulting polygons keep sharing the original vertices
+	 * and the intersection points are appended to vertexPool.
+	 */
+	public void split(Polyface3D splitter, List<Polyface3D> frontList, List<Polyface3D> backList, List<Vector3D> vertexPool) {
+		boolean shared = vertexPool != null && indexes != null;
 		List<Vector3D> frontVertices = new ArrayList<>();
 		List<Vector3D> backVertices = new ArrayList<>();
+		IndexList frontIndexes = shared ? new IndexList() : null;
+		IndexList backIndexes = shared ? new IndexList() : null;
+		List<Vector3D> frontNormals = vertexNormals != null ? new ArrayList<>() : null;
+		List<Vector3D> backNormals = vertexNormals != null ? new ArrayList<>() : null;
+		CoordinateList frontUV = texture != null ? new CoordinateList() : null;
+		CoordinateList backUV = texture != null ? new CoordinateList() : null;
 
 		// The core of Sutherland-Hodgman clipping for two outputs
 		for (int i = 0; i < this.vertices.length; i++) {
@@ -161,10 +222,16 @@ public class Polyface3D {
 
 
 			if (v1InsideFront) { 
-				frontVertices.add(v1.clone()); 
+				frontVertices.add(shared ? v1 : v1.clone()); 
+				if (shared) frontIndexes.add(indexes[i]);
+				if (frontNormals != null) frontNormals.add(vertexNormals[i]);
+				if (frontUV != null) frontUV.add(u[i], v[i]);
 			}
 			if (v1InsideBack) { 
-				backVertices.add(v1.clone()); 
+				backVertices.add(shared ? v1 : v1.clone()); 
+				if (shared) backIndexes.add(indexes[i]);
+				if (backNormals != null) backNormals.add(vertexNormals[i]);
+				if (backUV != null) backUV.add(u[i], v[i]);
 			}
 			
 			// Edge crosses the plane: find intersection
@@ -175,17 +242,86 @@ public class Polyface3D {
 				// Intersection point is on the plane, so it belongs to both new polygons.
 				if (intersection != null) {
 					frontVertices.add(intersection);
-					backVertices.add(intersection.clone()); // Must clone for the back list
+					if (shared) {// Shared intersection, vertices are immutable
+						vertexPool.add(intersection);
+						frontIndexes.add(vertexPool.size() - 1);
+						backIndexes.add(vertexPool.size() - 1);
+						backVertices.add(intersection);
+					} else backVertices.add(intersection.clone()); // Must clone for the back list
+					if (frontNormals != null) {// Interpolated normal, shared by both polygons as normals are immutable
+						Vector3D n1 = vertexNormals[i];
+						Vector3D n2 = vertexNormals[(i + 1) % this.vertices.length];
+						double t = dist1 / (dist1 - dist2);
+						Vector3D normal = new Vector3D(n1.x + t * (n2.x - n1.x), n1.y + t * (n2.y - n1.y), n1.z + t * (n2.z - n1.z)).normalize();
+						frontNormals.add(normal);
+						backNormals.add(normal);
+					}
+					if (frontUV != null) {// Interpolated texture coordinates
+						int j = (i + 1) % this.vertices.length;
+						double t = dist1 / (dist1 - dist2);
+						double iu = u[i] + t * (u[j] - u[i]), iv = v[i] + t * (v[j] - v[i]);
+						frontUV.add(iu, iv);
+						backUV.add(iu, iv);
+					}
 				}
 			}
 		}
 
 		// Create the new Polyface3D objects
 		if (frontVertices.size() >= 3) {
-			frontList.add(new Polyface3D(this.color, frontVertices.toArray(new Vector3D[0])));
+			Polyface3D front = new Polyface3D(this.color, frontVertices.toArray(new Vector3D[0]), shared ? frontIndexes.toArray() : null);
+			front.shadowMask = shadowMask;
+			front.colorIndex = colorIndex;
+			if (frontNormals != null)
+				front.vertexNormals = frontNormals.toArray(new Vector3D[0]);
+			if (frontUV != null)
+				frontUV.copyTo(front, texture);
+			frontList.add(front);
 		}
 		if (backVertices.size() >= 3) {
-			backList.add(new Polyface3D(this.color, backVertices.toArray(new Vector3D[0])));
+			Polyface3D back = new Polyface3D(this.color, backVertices.toArray(new Vector3D[0]), shared ? backIndexes.toArray() : null);
+			back.shadowMask = shadowMask;
+			back.colorIndex = colorIndex;
+			if (backNormals != null)
+				back.vertexNormals = backNormals.toArray(new Vector3D[0]);
+			if (backUV != null)
+				backUV.copyTo(back, texture);
+			backList.add(back);
+		}
+	}
+
+	private static class IndexList {// minimal growable list of int
+		int[] values = new int[8];
+		int size = 0;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	private static class CoordinateList {// minimal growable list of texture coordinates
+		double[] u = new double[8], v = new double[8];
+		int size = 0;
+
+		void add(double u, double v) {
+			if (size == this.u.length) {
+				this.u = Arrays.copyOf(this.u, size * 2);
+				this.v = Arrays.copyOf(this.v, size * 2);
+			}
+			this.u[size] = u;
+			this.v[size++] = v;
+		}
+
+		void copyTo(Polyface3D poly, Texture texture) {
+			poly.texture = texture;
+			poly.u = Arrays.copyOf(u, size);
+			poly.v = Arrays.copyOf(v, size);
 		}
 	}
 
@@ -23,17 +23,20 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.LinkedHashMap;
 
 import json.*;
 /**
- * 3D polygon with optional colorIndex. All vertices shall be coplanar.
+ * 3D polygon with optional colorIndex and optional texture coordinates. All vertices shall be coplanar.
  * v1.0 12-12-2025: first release
+ * v1.0.3 18-10-2026: optional texture coordinates of vertices
  */
 public class Polygon3D implements Dumpable {
 	Integer[] vertex_indexes;
 	Integer colorIndex;
+	double[] u, v;//optional texture coordinates of vertices, used if the mesh has a texture
 	Mesh mesh;
 
 	public Polygon3D(Mesh mesh, Integer... vertex_indexes) {
@@ -49,6 +52,24 @@ public class Polygon3D implements Dumpable {
 		return colorIndex;
 	}
 
+	/**
+     * Sets texture coordinates of vertices in the texture of the mesh, u and v shall have one value for each vertex, null removes them
+	 */
+	public void setTextureCoordinates(double[] u, double[] v) {
+		if (u == null || v == null) {
+			this.u = this.v = null;
+			return;
+		}
+		if (u.length != vertex_indexes.length || v.length != vertex_indexes.length)
+			throw new IllegalArgumentException("texture coordinates shall be given for each vertex of polygon");
+		this.u = u.clone();
+		this.v = v.clone();
+	}
+
+	public boolean hasTextureCoordinates() {
+		return u != null;
+	}
+
 	protected Polygon3D() {}
 	public void load(JSONValue data) {
 		JSONObject poly = (JSONObject) data;
@@ -60,6 +81,17 @@ public class Polygon3D implements Dumpable {
 		for (int i = 0; i < n; i++) {
 			vertex_indexes[i] = ((BigDecimal) idxs.get(i).toJava()).intValue();
 		}
+		JSONArray _uv = (JSONArray) poly.get("uv");
+		if (_uv != null) {
+			int n_uv = _uv.size();
+			u = new double[n_uv];
+			v = new double[n_uv];
+			for (int i = 0; i < n_uv; i++) {
+				JSONArray coords = (JSONArray) _uv.get(i);
+				u[i] = ((BigDecimal) coords.get(0).toJava()).doubleValue();
+				v[i] = ((BigDecimal) coords.get(1).toJava()).doubleValue();
+			}
+		} else u = v = null;
 	}
 
 	public JSONValue save() {
@@ -71,6 +103,33 @@ public class Polygon3D implements Dumpable {
 		poly.put("indexes", idxs);
 		if (colorIndex != null)
 			poly.put("colorIndex", new JSONNumber(BigDecimal.valueOf(colorIndex)));
+		if (u != null) {
+			JSONArray uv = new JSONArray();
+			for (int i = 0; i < u.length; i++) {
+				JSONArray coords = new JSONArray();
+				coords.add(new JSONNumber(BigDecimal.valueOf(u[i])));
+				coords.add(new JSONNumber(BigDecimal.valueOf(v[i])));
+				uv.add(coords);
+			}
+			poly.put("uv", uv);
+		}
 		return new JSONObject(poly);
 	}
+
+	public void save(JSONWriter out) throws IOException {
+		out.beginObject();
+		out.key("indexes").beginArray();
+		for (Integer vertexIndex : vertex_indexes)
+			out.value(vertexIndex);
+		out.endArray();
+		if (colorIndex != null)
+			out.key("colorIndex").value(colorIndex);
+		if (u != null) {
+			out.key("uv").beginArray();
+			for (int i = 0; i < u.length; i++)
+				out.beginArray().value(u[i]).value(v[i]).endArray();
+			out.endArray();
+		}
+		out.endObject();
+	}
 }
@@ -0,0 +1,272 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * PolygonMerger joins adjacent coplanar polygons of the same color into larger convex polygons, before the BSP tree is built.
+ * Two polygons are adjacent if they share an edge in opposite directions, vertices inside the chain of shared edges are removed,
+ * other vertices are kept, so collinear vertices on the border of merged polygons avoid cracks with the neighbors.
+ * Polygons with texture and polygons with smooth vertex normals (not parallel to the polygon normal) are not merged.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: vertices of the scene are welded by position, color index is kept
+ */
+class PolygonMerger {
+	private final static double EPSILON = 1e-5;// tolerance of distances from the plane, of convexity and of welded vertices
+	private final static double PARALLEL = 1 - 1e-9;// minimum cosine between normals of coplanar polygons
+
+	private PolygonMerger() {}
+
+	/**
+     * Returns the polygons with adjacent coplanar polygons of the same color merged, merged polygons replace the first one in order of list.
+	 * Polygons are adjacent if they share indexes of vertexPool, used for the pieces of a single polygon of a mesh
+	 */
+	static List<Polyface3D> merge(List<Polyface3D> polygons, List<Vector3D> vertexPool) {
+		int[][] rings = new int[polygons.size()][];// indexes of vertices of mergeable polygons, null if the polygon is kept as it is
+		for (int p = 0; p < rings.length; p++) {
+			Polyface3D poly = polygons.get(p);
+			if (isMergeable(poly))
+				rings[p] = poly.indexes.clone();
+		}
+		return merge(polygons, vertexPool, rings);
+	}
+
+	/**
+     * Returns the polygons of the scene with adjacent coplanar polygons of the same color merged, merged polygons replace the first one in order of list.
+	 * Vertices closer than EPSILON are welded, so polygons of different nodes and polygons repeating their vertices can be merged
+	 */
+	static List<Polyface3D> mergeScene(List<Polyface3D> polygons, List<Vector3D> vertexPool) {
+		int[][] rings = new int[polygons.size()][];
+		int[] welded = new int[vertexPool.size()];// index of welded vertex + 1, 0 if not yet welded
+		int[] next = new int[vertexPool.size()];// next welded vertex in the same cell
+		HashMap<Cell, Integer> cells = new HashMap<>();// first welded vertex of each cell
+		int[] mark = new int[vertexPool.size()];
+		for (int p = 0; p < rings.length; p++) {
+			Polyface3D poly = polygons.get(p);
+			if (!isMergeable(poly))
+				continue;
+			int[] ring = new int[poly.indexes.length];
+			boolean degenerate = false;
+			for (int i = 0; i < ring.length; i++) {
+				int index = poly.indexes[i];
+				if (welded[index] == 0)
+					welded[index] = weld(index, vertexPool, cells, next) + 1;
+				ring[i] = welded[index] - 1;
+				degenerate |= mark[ring[i]] == p + 1;// vertices of the polygon welded together
+				mark[ring[i]] = p + 1;
+			}
+			if (!degenerate)
+				rings[p] = ring;
+		}
+		return merge(polygons, vertexPool, rings);
+	}
+
+	private static List<Polyface3D> merge(List<Polyface3D> polygons, List<Vector3D> vertexPool, int[][] rings) {
+		int n = polygons.size();
+		boolean[] removed = new boolean[n];// polygons merged into another one
+		int n_corners = 0;
+		for (int p = 0; p < n; p++)
+			if (rings[p] != null)
+				n_corners += rings[p].length;
+		EdgeTable owners = new EdgeTable(n_corners);// directed edge -> index of polygon + 1
+		for (int p = 0; p < n; p++)
+			if (rings[p] != null)
+				setOwner(owners, rings[p], p);
+
+		int[] mark = new int[vertexPool.size()];
+		boolean[] changed = new boolean[n];
+		for (int p = 0; p < n; p++) {
+			if (rings[p] == null || removed[p])
+				continue;
+			Polyface3D poly = polygons.get(p);
+			boolean merged;
+			do {
+				merged = false;
+				int[] ring = rings[p];
+				for (int i = 0; i < ring.length && !merged; i++) {
+					int a = ring[i], b = ring[(i + 1) % ring.length];
+					int q = owners.count(b, a) - 1;
+					if (q < 0 || q == p || removed[q] || rings[q] == null || !isCoplanar(poly, polygons.get(q)))
+						continue;
+					int[] joined = join(ring, i, rings[q], a, b, vertexPool, poly.normal, mark, p + 1);
+					if (joined != null) {
+						rings[p] = joined;
+						removed[q] = true;
+						changed[p] = true;
+						setOwner(owners, joined, p);
+						merged = true;
+					}
+				}
+			} while (merged);
+		}
+
+		List<Polyface3D> result = new ArrayList<>(n);
+		for (int p = 0; p < n; p++) {
+			if (removed[p])
+				continue;
+			Polyface3D poly = polygons.get(p);
+			if (!changed[p]) {
+				result.add(poly);
+				continue;
+			}
+			int[] ring = rings[p];
+			int m = ring.length;
+			int first = 0;// the normal of polygon is computed from the first 3 vertices, they shall not be collinear
+			while (first < m && corner(ring[first], ring[(first + 1) % m], ring[(first + 2) % m], vertexPool, poly.normal) <= EPSILON)
+				first++;
+			Vector3D[] vertices = new Vector3D[m];
+			int[] indexes = new int[m];
+			for (int i = 0; i < m; i++) {
+				indexes[i] = ring[(first + i) % m];
+				vertices[i] = vertexPool.get(indexes[i]);
+			}
+			Polyface3D merged = new Polyface3D(poly.color, vertices, indexes);// vertex normals are all parallel to the polygon normal
+			merged.colorIndex = poly.colorIndex;
+			result.add(merged);
+		}
+		return result;
+	}
+
+	//cell of the grid used to weld vertices, the size of cells is EPSILON
+	private final static class Cell {
+		final long x, y, z;
+
+		Cell(long x, long y, long z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Cell))
+				return false;
+			Cell other = (Cell) o;
+			return x == other.x && y == other.y && z == other.z;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(x * 31 * 31 + y * 31 + z);
+		}
+	}
+
+	//returns the first welded vertex closer than EPSILON to vertexPool[index] in the 27 cells around it, or index itself added to its cell
+	private static int weld(int index, List<Vector3D> vertexPool, HashMap<Cell, Integer> cells, int[] next) {
+		Vector3D v = vertexPool.get(index);
+		long cx = (long) Math.floor(v.x / EPSILON), cy = (long) Math.floor(v.y / EPSILON), cz = (long) Math.floor(v.z / EPSILON);
+		for (long dx = -1; dx <= 1; dx++)
+			for (long dy = -1; dy <= 1; dy++)
+				for (long dz = -1; dz <= 1; dz++) {
+					Integer first = cells.get(new Cell(cx + dx, cy + dy, cz + dz));
+					for (int w = first == null ? -1 : first; w >= 0; w = next[w]) {
+						Vector3D other = vertexPool.get(w);
+						if (Math.abs(other.x - v.x) <= EPSILON && Math.abs(other.y - v.y) <= EPSILON && Math.abs(other.z - v.z) <= EPSILON)
+							return w;
+					}
+				}
+		Cell cell = new Cell(cx, cy, cz);
+		Integer first = cells.get(cell);
+		next[index] = first == null ? -1 : first;
+		cells.put(cell, index);
+		return index;
+	}
+
+	private static boolean isMergeable(Polyface3D poly) {
+		if (poly.indexes == null || poly.texture != null || poly.shadowMask != 0)
+			return false;
+		if (poly.vertexNormals != null)
+			for (Vector3D normal : poly.vertexNormals)
+				if (normal.dot(poly.normal) < PARALLEL)
+					return false;
+		return true;
+	}
+
+	private static boolean isCoplanar(Polyface3D poly, Polyface3D other) {
+		if (!poly.color.equals(other.color) || poly.colorIndex != other.colorIndex || poly.normal.dot(other.normal) < PARALLEL)
+			return false;
+		Vector3D origin = poly.vertices[0];
+		for (Vector3D v : other.vertices)
+			if (Math.abs((v.x - origin.x) * poly.normal.x + (v.y - origin.y) * poly.normal.y + (v.z - origin.z) * poly.normal.z) > EPSILON)
+				return false;
+		return true;
+	}
+
+	//joins ring with other along the chain of shared edges containing edge a-b (ring[i] = a), vertices inside the chain are removed
+	//returns null if the result is not convex or if the polygons share other vertices
+	private static int[] join(int[] ring, int i, int[] other, int a, int b, List<Vector3D> vertexPool, Vector3D normal, int[] mark, int stamp) {
+		int n = ring.length, m = other.length;
+		int j = 0;// other[j] = b and other[j + 1] = a
+		while (other[j] != b || other[(j + 1) % m] != a)
+			j++;
+		// chain from ring[start] to ring[end] along ring, it is from other[otherEnd] to other[otherStart] along other
+		int start = i, end = i + 1, otherStart = j + 1, otherEnd = j;
+		while (end - start < Math.min(n, m) - 1 && ring[(start - 1 + n) % n] == other[(otherStart + 1) % m]) {
+			start--;
+			otherStart++;
+		}
+		while (end - start < Math.min(n, m) - 1 && ring[(end + 1) % n] == other[(otherEnd - 1 + m) % m]) {
+			end++;
+			otherEnd--;
+		}
+		int chain = end - start;// number of shared edges
+		if (n + m - 2 * chain < 3)
+			return null;
+		// Both polygons are convex, so only the corners at the ends of the chain can be concave
+		int before = other[((otherEnd - 1) % m + m) % m], after = other[(otherStart + 1) % m];
+		if (corner(before, ring[(end % n + n) % n], ring[((end + 1) % n + n) % n], vertexPool, normal) < -EPSILON
+			|| corner(ring[((start - 1) % n + n) % n], ring[(start % n + n) % n], after, vertexPool, normal) < -EPSILON)
+			return null;
+		int[] joined = new int[n + m - 2 * chain];
+		for (int k = 0; k <= n - chain; k++) {// from end to start along ring
+			joined[k] = ring[((end + k) % n + n) % n];
+			mark[joined[k]] = stamp;
+		}
+		boolean shared = false;
+		for (int k = 1; k < m - chain; k++) {// from vertex after start to vertex before end along other
+			int vertex = other[((otherStart + k) % m + m) % m];
+			shared |= mark[vertex] == stamp;
+			joined[n - chain + k] = vertex;
+		}
+		for (int k = 0; k <= n - chain; k++)// marks are valid only during a single join
+			mark[joined[k]] = 0;
+		return shared ? null : joined;
+	}
+
+	//returns the projection on normal of the cross product of edges at vertex v1, positive if the corner is convex
+	private static double corner(int i0, int i1, int i2, List<Vector3D> vertexPool, Vector3D normal) {
+		Vector3D v0 = vertexPool.get(i0), v1 = vertexPool.get(i1), v2 = vertexPool.get(i2);
+		double ax = v1.x - v0.x, ay = v1.y - v0.y, az = v1.z - v0.z;
+		double bx = v2.x - v1.x, by = v2.y - v1.y, bz = v2.z - v1.z;
+		return (ay * bz - az * by) * normal.x + (az * bx - ax * bz) * normal.y + (ax * by - ay * bx) * normal.z;
+	}
+
+	private static void setOwner(EdgeTable owners, int[] ring, int p) {
+		for (int i = 0; i < ring.length; i++)
+			owners.put(ring[i], ring[(i + 1) % ring.length], p + 1);
+	}
+}
@@ -0,0 +1,585 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.Arrays;
+
+/**
+ * Rasterizer draws polygons into an int[] buffer of pixels in format 0xAARRGGBB, independent from the GUI toolkit.
+ * The buffer can be transferred to the screen with a single operation per frame, for example PixelWriter.setPixels() in JavaFX
+ * or BufferedImage.setRGB() in Swing.
+ * Triangles are rasterized with incremental edge functions in fixed point (4 bits of sub-pixel precision) using the top-left fill rule,
+ * Gouraud colors are interpolated with fixed point deltas (16 bits of fraction), pixels are sampled at their centers.
+ * Colors given to the drawing methods are packed as 0xRRGGBB.
+ * When the w coordinates (clip space w before perspective divide) of vertices are given, colors are interpolated with perspective correction
+ * using 1/w, and if the depth buffer is enabled, pixels are tested against a float depth buffer holding 1/w of the nearest pixel drawn:
+ * in this mode polygons can be drawn in any order, drawing them front to back skips the shading of hidden pixels (early-z rejection).
+ * Among coplanar polygons the first drawn is visible, so front to back order gives the same result of painter's algorithm with back to front order.
+ * Textured polygons are drawn by spans: texture coordinates are computed exactly every SPAN pixels and interpolated linearly in between,
+ * the mip level is selected for each span from the derivatives of texture coordinates, texels are modulated by the Gouraud colors
+ * and then blended with the fog color using the fog factors of vertices, if given.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: perspective-correct interpolation and depth buffer
+ *      18-10-2026: texture mapping with mip levels
+ *      18-10-2026: fog of textured polygons
+ */
+public class Rasterizer {
+	private final static int SUBPIXEL_BITS = 4;
+	private final static int SUBPIXEL = 1 << SUBPIXEL_BITS;
+	private final static int FIXED_BITS = 16;//fraction bits of colors
+	private final static float DEPTH_MARGIN = 1 + 1e-5f;//a pixel shall be nearer than the stored one by this margin, so among coplanar polygons the first drawn wins
+	private final static double GUARD_BAND = 8192;//polygons exceeding the screen by more than GUARD_BAND pixels are clipped before rasterization
+	private final static int SPAN = 16;//texture coordinates are computed with perspective correction every SPAN pixels
+
+	private final int width, height;
+	private final int[] pixels;
+	private float[] depth;//1/w of nearest pixel, 0 means empty, null if depth buffer is disabled
+	private int fogRGB = 0xFFFFFF;//color blended with textured pixels by fog factors
+
+	public Rasterizer(int width, int height) {
+		if (width < 1 || height < 1) throw new IllegalArgumentException("width and height shall be greater than 0");
+		this.width = width;
+		this.height = height;
+		pixels = new int[width * height];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+     * Returns the buffer of pixels, pixel (x, y) is at index y * width + x
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+     * Fills the buffer with color rgb and clears the depth buffer
+	 */
+	public void clear(int rgb) {
+		Arrays.fill(pixels, 0xFF000000 | rgb);
+		clearDepth();
+	}
+
+	/**
+     * Enables or disables the depth buffer, it is used only by the drawing methods receiving the w coordinates of vertices
+	 */
+	public void setDepthBuffer(boolean enabled) {
+		if (!enabled)
+			depth = null;
+		else if (depth == null)
+			depth = new float[width * height];
+	}
+
+	public boolean isDepthBufferEnabled() {
+		return depth != null;
+	}
+
+	public void clearDepth() {
+		if (depth != null)
+			Arrays.fill(depth, 0);
+	}
+
+	/**
+     * Sets the color of fog packed as 0xRRGGBB, used by textured polygons drawn with fog factors, like the fog color of Engine3D
+	 */
+	public void setFogColor(int rgb) {
+		fogRGB = rgb & 0xFFFFFF;
+	}
+
+	public int getFogColor() {
+		return fogRGB;
+	}
+
+	public void fillRect(int x, int y, int w, int h, int rgb) {
+		int x0 = Math.max(0, x), x1 = Math.min(width, x + w);
+		int y0 = Math.max(0, y), y1 = Math.min(height, y + h);
+		if (x0 >= x1)
+			return;
+		int argb = 0xFF000000 | rgb;
+		for (int j = y0; j < y1; j++)
+			Arrays.fill(pixels, j * width + x0, j * width + x1, argb);
+	}
+
+	/**
+     * Fills a convex polygon with a single color, x and y are screen coordinates of the n vertices
+	 */
+	public void fillPolygon(double[] x, double[] y, int n, int rgb) {
+		fillPolygon(x, y, null, n, rgb);
+	}
+
+	/**
+     * Fills a convex polygon with a single color, w holds the clip space w of vertices for depth test, it can be null
+	 */
+	public void fillPolygon(double[] x, double[] y, double[] w, int n, int rgb) {
+		int[] colors = new int[n];
+		Arrays.fill(colors, rgb);
+		fillGouraudPolygon(x, y, w, colors, n);
+	}
+
+	/**
+     * Fills a convex polygon interpolating the colors of the n vertices (Gouraud shading), x and y are screen coordinates
+	 */
+	public void fillGouraudPolygon(double[] x, double[] y, int[] rgb, int n) {
+		fillGouraudPolygon(x, y, null, rgb, n);
+	}
+
+	/**
+     * Fills a convex polygon interpolating the colors of the n vertices (Gouraud shading), x and y are screen coordinates.
+	 * If w is not null, it holds the clip space w of vertices (w > 0): colors are interpolated with perspective correction and depth is tested.
+	 */
+	public void fillGouraudPolygon(double[] x, double[] y, double[] w, int[] rgb, int n) {
+		fillPolygon(x, y, w, null, null, rgb, null, n, null);
+	}
+
+	/**
+     * Fills a convex polygon with a texture, u and v are the texture coordinates of the n vertices (0..1 over the whole texture),
+	 * texels are multiplied by the colors of vertices interpolated as in Gouraud shading, 0xFFFFFF keeps the original texels.
+	 * If w is null, texture coordinates are interpolated linearly in screen space (affine mapping), it is faster but textures of polygons
+	 * far from parallel to the screen are distorted, otherwise w holds the clip space w of vertices (w > 0):
+	 * texture coordinates are interpolated with perspective correction and depth is tested.
+	 */
+	public void fillTexturedPolygon(double[] x, double[] y, double[] w, double[] u, double[] v, int[] rgb, int n, Texture texture) {
+		fillPolygon(x, y, w, u, v, rgb, null, n, texture);
+	}
+
+	/**
+     * Fills a convex polygon with a texture as fillTexturedPolygon(x, y, w, u, v, rgb, n, texture), then pixels are blended with the fog color:
+	 * fog holds the fog factors of vertices, 1 means no fog and 0 means only fog, like Engine3D.getFogFactor() of the w of vertices.
+	 * Fog factors are interpolated as the colors, the fog is applied after the texels are multiplied by the colors
+	 */
+	public void fillTexturedPolygon(double[] x, double[] y, double[] w, double[] u, double[] v, int[] rgb, double[] fog, int n, Texture texture) {
+		fillPolygon(x, y, w, u, v, rgb, fog, n, texture);
+	}
+
+	private void fillPolygon(double[] x, double[] y, double[] w, double[] u, double[] v, int[] rgb, double[] fog, int n, Texture texture) {
+		if (n < 3)
+			return;
+		for (int i = 0; i < n; i++)
+			if (x[i] < -GUARD_BAND || x[i] > width + GUARD_BAND || y[i] < -GUARD_BAND || y[i] > height + GUARD_BAND) {
+				Clipped clipped = clipToGuardBand(x, y, w, u, v, rgb, fog, n);
+				x = clipped.x;
+				y = clipped.y;
+				w = clipped.w;
+				u = clipped.u;
+				v = clipped.v;
+				rgb = clipped.rgb;
+				fog = clipped.f;
+				n = clipped.n;
+				break;
+			}
+		for (int i = 1; i < n - 1; i++) {// fan triangulation
+			if (texture != null)
+				fillTriangle(x[0], y[0], w == null ? 1 : w[0], rgb[0], x[i], y[i], w == null ? 1 : w[i], rgb[i], x[i + 1], y[i + 1], w == null ? 1 : w[i + 1], rgb[i + 1],
+					w != null, texture, u[0], v[0], u[i], v[i], u[i + 1], v[i + 1], fog != null, fog == null ? 1 : fog[0], fog == null ? 1 : fog[i], fog == null ? 1 : fog[i + 1]);
+			else if (w == null)
+				fillGouraudTriangle(x[0], y[0], rgb[0], x[i], y[i], rgb[i], x[i + 1], y[i + 1], rgb[i + 1]);
+			else fillTriangle(x[0], y[0], w[0], rgb[0], x[i], y[i], w[i], rgb[i], x[i + 1], y[i + 1], w[i + 1], rgb[i + 1], true);
+		}
+	}
+
+	/**
+     * Fills a triangle interpolating the colors of the vertices (Gouraud shading)
+	 */
+	public void fillGouraudTriangle(double x0, double y0, int c0, double x1, double y1, int c1, double x2, double y2, int c2) {
+		fillTriangle(x0, y0, 1, c0, x1, y1, 1, c1, x2, y2, 1, c2, false);
+	}
+
+	/**
+     * Fills a triangle interpolating the colors of the vertices (Gouraud shading) with perspective correction and depth test,
+	 * w0, w1 and w2 are the clip space w of vertices (w > 0)
+	 */
+	public void fillGouraudTriangle(double x0, double y0, double w0, int c0, double x1, double y1, double w1, int c1, double x2, double y2, double w2, int c2) {
+		fillTriangle(x0, y0, w0, c0, x1, y1, w1, c1, x2, y2, w2, c2, true);
+	}
+
+	private void fillTriangle(double x0, double y0, double w0, int c0, double x1, double y1, double w1, int c1, double x2, double y2, double w2, int c2, boolean perspective) {
+		fillTriangle(x0, y0, w0, c0, x1, y1, w1, c1, x2, y2, w2, c2, perspective, null, 0, 0, 0, 0, 0, 0, false, 1, 1, 1);
+	}
+
+	private void fillTriangle(double x0, double y0, double w0, int c0, double x1, double y1, double w1, int c1, double x2, double y2, double w2, int c2, boolean perspective,
+			Texture texture, double u0, double v0, double u1, double v1, double u2, double v2, boolean fogged, double f0, double f1, double f2) {
+		// Vertices in fixed point
+		long fx0 = Math.round(x0 * SUBPIXEL), fy0 = Math.round(y0 * SUBPIXEL);
+		long fx1 = Math.round(x1 * SUBPIXEL), fy1 = Math.round(y1 * SUBPIXEL);
+		long fx2 = Math.round(x2 * SUBPIXEL), fy2 = Math.round(y2 * SUBPIXEL);
+		long area = (fx1 - fx0) * (fy2 - fy0) - (fy1 - fy0) * (fx2 - fx0);
+		if (area == 0)
+			return;// degenerate triangle
+		if (area < 0) {// make edge functions positive inside the triangle
+			long t = fx1; fx1 = fx2; fx2 = t;
+			t = fy1; fy1 = fy2; fy2 = t;
+			double d = x1; x1 = x2; x2 = d;
+			d = y1; y1 = y2; y2 = d;
+			d = w1; w1 = w2; w2 = d;
+			d = u1; u1 = u2; u2 = d;
+			d = v1; v1 = v2; v2 = d;
+			d = f1; f1 = f2; f2 = d;
+			int c = c1; c1 = c2; c2 = c;
+		}
+
+		// Bounding box of pixel centers, clipped to the buffer
+		int minX = (int) Math.max(0, (Math.min(fx0, Math.min(fx1, fx2)) + SUBPIXEL / 2 - 1) >> SUBPIXEL_BITS);
+		int maxX = (int) Math.min(width - 1, (Math.max(fx0, Math.max(fx1, fx2)) - SUBPIXEL / 2) >> SUBPIXEL_BITS);
+		int minY = (int) Math.max(0, (Math.min(fy0, Math.min(fy1, fy2)) + SUBPIXEL / 2 - 1) >> SUBPIXEL_BITS);
+		int maxY = (int) Math.min(height - 1, (Math.max(fy0, Math.max(fy1, fy2)) - SUBPIXEL / 2) >> SUBPIXEL_BITS);
+		if (minX > maxX || minY > maxY)
+			return;
+
+		// Edge functions E(p) = (b.x - a.x) * (p.y - a.y) - (b.y - a.y) * (p.x - a.x) for edges 0-1, 1-2, 2-0
+		long dx01 = fx1 - fx0, dy01 = fy1 - fy0;
+		long dx12 = fx2 - fx1, dy12 = fy2 - fy1;
+		long dx20 = fx0 - fx2, dy20 = fy0 - fy2;
+		// Top-left fill rule: pixels on top or left edges are inside, bias makes the test E > 0 for all edges
+		long bias0 = isTopLeft(dx01, dy01) ? 1 : 0;
+		long bias1 = isTopLeft(dx12, dy12) ? 1 : 0;
+		long bias2 = isTopLeft(dx20, dy20) ? 1 : 0;
+		long px = ((long) minX << SUBPIXEL_BITS) + SUBPIXEL / 2;// center of first pixel
+		long py = ((long) minY << SUBPIXEL_BITS) + SUBPIXEL / 2;
+		long e0Row = dx01 * (py - fy0) - dy01 * (px - fx0) + bias0;
+		long e1Row = dx12 * (py - fy1) - dy12 * (px - fx1) + bias1;
+		long e2Row = dx20 * (py - fy2) - dy20 * (px - fx2) + bias2;
+		// Increments of edge functions for one pixel step
+		long e0StepX = -dy01 << SUBPIXEL_BITS, e0StepY = dx01 << SUBPIXEL_BITS;
+		long e1StepX = -dy12 << SUBPIXEL_BITS, e1StepY = dx12 << SUBPIXEL_BITS;
+		long e2StepX = -dy20 << SUBPIXEL_BITS, e2StepY = dx20 << SUBPIXEL_BITS;
+
+		double det = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+		if (det == 0)
+			return;
+		if (texture != null) {
+			fillTextured(x0, y0, w0, c0, u0, v0, x1, y1, w1, c1, u1, v1, x2, y2, w2, c2, u2, v2, det, minX, maxX, minY, maxY,
+				e0Row, e1Row, e2Row, e0StepX, e1StepX, e2StepX, e0StepY, e1StepY, e2StepY, texture, perspective, fogged, f0, f1, f2);
+			return;
+		}
+		if (perspective) {
+			fillPerspective(x0, y0, w0, c0, x1, y1, w1, c1, x2, y2, w2, c2, det, minX, maxX, minY, maxY,
+				e0Row, e1Row, e2Row, e0StepX, e1StepX, e2StepX, e0StepY, e1StepY, e2StepY);
+			return;
+		}
+
+		// Gradients of colors over the plane of the triangle
+		int r0 = (c0 >> 16) & 0xFF, g0 = (c0 >> 8) & 0xFF, b0 = c0 & 0xFF;
+		double dr1 = ((c1 >> 16) & 0xFF) - r0, dr2 = ((c2 >> 16) & 0xFF) - r0;
+		double dg1 = ((c1 >> 8) & 0xFF) - g0, dg2 = ((c2 >> 8) & 0xFF) - g0;
+		double db1 = (c1 & 0xFF) - b0, db2 = (c2 & 0xFF) - b0;
+		double drdx = (dr1 * (y2 - y0) - dr2 * (y1 - y0)) / det, drdy = (dr2 * (x1 - x0) - dr1 * (x2 - x0)) / det;
+		double dgdx = (dg1 * (y2 - y0) - dg2 * (y1 - y0)) / det, dgdy = (dg2 * (x1 - x0) - dg1 * (x2 - x0)) / det;
+		double dbdx = (db1 * (y2 - y0) - db2 * (y1 - y0)) / det, dbdy = (db2 * (x1 - x0) - db1 * (x2 - x0)) / det;
+		long rStepX = toFixed(drdx), gStepX = toFixed(dgdx), bStepX = toFixed(dbdx);
+		double rx = minX + 0.5 - x0;
+
+		for (int y = minY; y <= maxY; y++) {
+			long e0 = e0Row, e1 = e1Row, e2 = e2Row;
+			double ry = y + 0.5 - y0;
+			long r = toFixed(r0 + 0.5 + drdx * rx + drdy * ry);// + 0.5 for rounding
+			long g = toFixed(g0 + 0.5 + dgdx * rx + dgdy * ry);
+			long b = toFixed(b0 + 0.5 + dbdx * rx + dbdy * ry);
+			int offset = y * width;
+			boolean inside = false;
+			for (int x = minX; x <= maxX; x++) {
+				if (e0 > 0 && e1 > 0 && e2 > 0) {
+					pixels[offset + x] = 0xFF000000 | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+					inside = true;
+				} else if (inside)
+					break;// triangle is convex, the rest of the row is outside
+				e0 += e0StepX;
+				e1 += e1StepX;
+				e2 += e2StepX;
+				r += rStepX;
+				g += gStepX;
+				b += bStepX;
+			}
+			e0Row += e0StepY;
+			e1Row += e1StepY;
+			e2Row += e2StepY;
+		}
+	}
+
+	// Perspective-correct inner loop: 1/w and color/w are linear in screen space, color = (color/w) / (1/w)
+	private void fillPerspective(double x0, double y0, double w0, int c0, double x1, double y1, double w1, int c1, double x2, double y2, double w2, int c2,
+			double det, int minX, int maxX, int minY, int maxY,
+			long e0Row, long e1Row, long e2Row, long e0StepX, long e1StepX, long e2StepX, long e0StepY, long e1StepY, long e2StepY) {
+		double q0 = 1 / w0, q1 = 1 / w1, q2 = 1 / w2;
+		// Attributes divided by w: 1/w, r/w, g/w, b/w
+		double[] a0 = {q0, ((c0 >> 16) & 0xFF) * q0, ((c0 >> 8) & 0xFF) * q0, (c0 & 0xFF) * q0};
+		double[] a1 = {q1, ((c1 >> 16) & 0xFF) * q1, ((c1 >> 8) & 0xFF) * q1, (c1 & 0xFF) * q1};
+		double[] a2 = {q2, ((c2 >> 16) & 0xFF) * q2, ((c2 >> 8) & 0xFF) * q2, (c2 & 0xFF) * q2};
+		double[] ddx = new double[4], ddy = new double[4], start = new double[4];
+		double rx = minX + 0.5 - x0;
+		for (int k = 0; k < 4; k++) {
+			double d1 = a1[k] - a0[k], d2 = a2[k] - a0[k];
+			ddx[k] = (d1 * (y2 - y0) - d2 * (y1 - y0)) / det;
+			ddy[k] = (d2 * (x1 - x0) - d1 * (x2 - x0)) / det;
+			start[k] = a0[k] + ddx[k] * rx;
+		}
+		float[] depth = this.depth;
+		for (int y = minY; y <= maxY; y++) {
+			long e0 = e0Row, e1 = e1Row, e2 = e2Row;
+			double ry = y + 0.5 - y0;
+			double q = start[0] + ddy[0] * ry;
+			double r = start[1] + ddy[1] * ry;
+			double g = start[2] + ddy[2] * ry;
+			double b = start[3] + ddy[3] * ry;
+			int offset = y * width;
+			boolean inside = false;
+			for (int x = minX; x <= maxX; x++) {
+				if (e0 > 0 && e1 > 0 && e2 > 0) {
+					inside = true;
+					int idx = offset + x;
+					if (depth == null || q > depth[idx] * DEPTH_MARGIN) {// early-z: hidden pixels are not shaded
+						if (depth != null)
+							depth[idx] = (float) q;
+						double inv = 1 / q;
+						pixels[idx] = 0xFF000000 | (clamp(r * inv) << 16) | (clamp(g * inv) << 8) | clamp(b * inv);
+					}
+				} else if (inside)
+					break;// triangle is convex, the rest of the row is outside
+				e0 += e0StepX;
+				e1 += e1StepX;
+				e2 += e2StepX;
+				q += ddx[0];
+				r += ddx[1];
+				g += ddx[2];
+				b += ddx[3];
+			}
+			e0Row += e0StepY;
+			e1Row += e1StepY;
+			e2Row += e2StepY;
+		}
+	}
+
+	// Textured inner loop: attributes divided by w are linear in screen space, they are divided by 1/w at the ends of each span of SPAN pixels
+	// and texture coordinates, colors and fog factors are interpolated linearly along the span. In affine mode w is 1 for all vertices.
+	private void fillTextured(double x0, double y0, double w0, int c0, double u0, double v0, double x1, double y1, double w1, int c1, double u1, double v1,
+			double x2, double y2, double w2, int c2, double u2, double v2, double det, int minX, int maxX, int minY, int maxY,
+			long e0Row, long e1Row, long e2Row, long e0StepX, long e1StepX, long e2StepX, long e0StepY, long e1StepY, long e2StepY,
+			Texture texture, boolean perspective, boolean fogged, double f0, double f1, double f2) {
+		double q0 = 1 / w0, q1 = 1 / w1, q2 = 1 / w2;
+		int tw = texture.getWidth(), th = texture.getHeight();
+		// Attributes divided by w: 1/w, u/w and v/w in texels of level 0, r/w, g/w, b/w, fog factor/w scaled to 0..256
+		double[] a0 = {q0, u0 * tw * q0, v0 * th * q0, ((c0 >> 16) & 0xFF) * q0, ((c0 >> 8) & 0xFF) * q0, (c0 & 0xFF) * q0, f0 * 256 * q0};
+		double[] a1 = {q1, u1 * tw * q1, v1 * th * q1, ((c1 >> 16) & 0xFF) * q1, ((c1 >> 8) & 0xFF) * q1, (c1 & 0xFF) * q1, f1 * 256 * q1};
+		double[] a2 = {q2, u2 * tw * q2, v2 * th * q2, ((c2 >> 16) & 0xFF) * q2, ((c2 >> 8) & 0xFF) * q2, (c2 & 0xFF) * q2, f2 * 256 * q2};
+		double[] ddx = new double[7], ddy = new double[7], start = new double[7];
+		double rx = minX + 0.5 - x0;
+		for (int k = 0; k < 7; k++) {
+			double d1 = a1[k] - a0[k], d2 = a2[k] - a0[k];
+			ddx[k] = (d1 * (y2 - y0) - d2 * (y1 - y0)) / det;
+			ddy[k] = (d2 * (x1 - x0) - d1 * (x2 - x0)) / det;
+			start[k] = a0[k] + ddx[k] * rx;
+		}
+		int maxLevel = texture.levels.length - 1;
+		float[] depth = perspective ? this.depth : null;
+		int fogR = (fogRGB >> 16) & 0xFF, fogG = (fogRGB >> 8) & 0xFF, fogB = fogRGB & 0xFF;
+		double[] a = new double[7];
+		for (int y = minY; y <= maxY; y++) {
+			long e0 = e0Row, e1 = e1Row, e2 = e2Row;
+			e0Row += e0StepY;
+			e1Row += e1StepY;
+			e2Row += e2StepY;
+			// Span of the row inside the triangle
+			int x = minX;
+			while (x <= maxX && !(e0 > 0 && e1 > 0 && e2 > 0)) {
+				e0 += e0StepX;
+				e1 += e1StepX;
+				e2 += e2StepX;
+				x++;
+			}
+			int xStart = x;
+			while (x <= maxX && e0 > 0 && e1 > 0 && e2 > 0) {
+				e0 += e0StepX;
+				e1 += e1StepX;
+				e2 += e2StepX;
+				x++;
+			}
+			int xEnd = x;// first pixel outside the span
+			if (xStart == xEnd)
+				continue;
+			double ry = y + 0.5 - y0;
+			for (int k = 0; k < 7; k++)
+				a[k] = start[k] + ddy[k] * ry + ddx[k] * (xStart - minX);
+			double q = a[0];
+			int offset = y * width;
+			for (int xs = xStart; xs < xEnd; xs += SPAN) {
+				int length = Math.min(SPAN, xEnd - xs);
+				// Attributes at the start of the span
+				double inv = 1 / a[0];
+				double u = a[1] * inv, v = a[2] * inv;
+				double r = a[3] * inv, g = a[4] * inv, b = a[5] * inv, f = a[6] * inv;
+				// Mip level from derivatives of texture coordinates in texels of level 0
+				double dudx = (ddx[1] - u * ddx[0]) * inv, dvdx = (ddx[2] - v * ddx[0]) * inv;
+				double dudy = (ddy[1] - u * ddy[0]) * inv, dvdy = (ddy[2] - v * ddy[0]) * inv;
+				double rho2 = Math.max(dudx * dudx + dvdx * dvdx, dudy * dudy + dvdy * dvdy);
+				int level = rho2 < 4 ? 0 : Math.min(maxLevel, Math.getExponent(rho2) >> 1);// floor(log2(rho))
+				// Attributes at the end of the span
+				for (int k = 0; k < 7; k++)
+					a[k] += ddx[k] * length;
+				inv = 1 / a[0];
+				int[] texels = texture.levels[level];
+				int widthBits = texture.widthBits[level], widthMask = (1 << widthBits) - 1;
+				int heightMask = (1 << texture.heightBits[level]) - 1;
+				double scaleU = (double) (widthMask + 1) / tw;// texels of level 0 to texels of level
+				double scaleV = (double) (heightMask + 1) / th;
+				long fu = toFixed(u * scaleU), fuStep = toFixed((a[1] * inv - u) * scaleU / length);
+				long fv = toFixed(v * scaleV), fvStep = toFixed((a[2] * inv - v) * scaleV / length);
+				long fr = toFixed(r + 0.5), frStep = toFixed((a[3] * inv - r) / length);
+				long fg = toFixed(g + 0.5), fgStep = toFixed((a[4] * inv - g) / length);
+				long fb = toFixed(b + 0.5), fbStep = toFixed((a[5] * inv - b) / length);
+				long ff = toFixed(f + 0.5), ffStep = toFixed((a[6] * inv - f) / length);
+				for (int idx = offset + xs, end = idx + length; idx < end; idx++) {
+					if (depth == null || q > depth[idx] * DEPTH_MARGIN) {// early-z: hidden pixels are not textured
+						if (depth != null)
+							depth[idx] = (float) q;
+						int texel = texels[((int) (fv >> FIXED_BITS) & heightMask) << widthBits | ((int) (fu >> FIXED_BITS) & widthMask)];
+						int red = modulate(texel >> 16, clamp(fr)), green = modulate(texel >> 8, clamp(fg)), blue = modulate(texel, clamp(fb));
+						if (fogged) {// blend with fog color after shading, k = 256 means no fog
+							long k = ff >> FIXED_BITS;
+							int factor = k < 0 ? 0 : k > 256 ? 256 : (int) k;
+							red = (red * factor + fogR * (256 - factor) + 128) >> 8;
+							green = (green * factor + fogG * (256 - factor) + 128) >> 8;
+							blue = (blue * factor + fogB * (256 - factor) + 128) >> 8;
+						}
+						pixels[idx] = 0xFF000000 | red << 16 | green << 8 | blue;
+					}
+					q += ddx[0];
+					fu += fuStep;
+					fv += fvStep;
+					fr += frStep;
+					fg += fgStep;
+					fb += fbStep;
+					ff += ffStep;
+				}
+			}
+		}
+	}
+
+	private static int modulate(int texel, int color) {// component of texel multiplied by color component, 255 keeps the texel
+		return ((texel & 0xFF) * (color + (color >> 7))) >> 8;
+	}
+
+	private static int clamp(double value) {// color component to 0..255 with rounding
+		int c = (int) (value + 0.5);
+		return c < 0 ? 0 : c > 255 ? 255 : c;
+	}
+
+	private static boolean isTopLeft(long dx, long dy) {
+		return dy < 0 || (dy == 0 && dx > 0);
+	}
+
+	private static long toFixed(double value) {// gradients of slivers can be huge, they are limited to avoid overflow
+		return (long) (Math.max(-1e9, Math.min(1e9, value)) * (1 << FIXED_BITS));
+	}
+
+	private static int clamp(long fixed) {// fixed point color component to 0..255
+		long value = fixed >> FIXED_BITS;
+		return value < 0 ? 0 : value > 255 ? 255 : (int) value;
+	}
+
+	private static class Clipped {
+		double[] x, y, w, u, v, f;
+		int[] rgb;
+		int n;
+	}
+
+	// Sutherland-Hodgman clipping against the guard band, colors, texture coordinates and fog factors are interpolated linearly in screen space,
+	// or with perspective correction if w is given
+	private Clipped clipToGuardBand(double[] x, double[] y, double[] w, double[] u, double[] v, int[] rgb, double[] f, int n) {
+		Clipped polygon = new Clipped();
+		polygon.x = Arrays.copyOf(x, n);
+		polygon.y = Arrays.copyOf(y, n);
+		polygon.w = w == null ? null : Arrays.copyOf(w, n);
+		polygon.u = u == null ? null : Arrays.copyOf(u, n);
+		polygon.v = v == null ? null : Arrays.copyOf(v, n);
+		polygon.f = f == null ? null : Arrays.copyOf(f, n);
+		polygon.rgb = Arrays.copyOf(rgb, n);
+		polygon.n = n;
+		polygon = clipAgainst(polygon, 0, -GUARD_BAND, 1);// x >= -GUARD_BAND
+		polygon = clipAgainst(polygon, 0, width + GUARD_BAND, -1);// x <= width + GUARD_BAND
+		polygon = clipAgainst(polygon, 1, -GUARD_BAND, 1);// y >= -GUARD_BAND
+		polygon = clipAgainst(polygon, 1, height + GUARD_BAND, -1);// y <= height + GUARD_BAND
+		return polygon;
+	}
+
+	// keeps the part of polygon where sign * (coordinate - limit) >= 0, coordinate is x for axis 0, y for axis 1
+	private static Clipped clipAgainst(Clipped in, int axis, double limit, int sign) {
+		Clipped out = new Clipped();
+		out.x = new double[in.n * 2];
+		out.y = new double[in.n * 2];
+		out.w = in.w == null ? null : new double[in.n * 2];
+		out.u = in.u == null ? null : new double[in.n * 2];
+		out.v = in.v == null ? null : new double[in.n * 2];
+		out.f = in.f == null ? null : new double[in.n * 2];
+		out.rgb = new int[in.n * 2];
+		double[] c = axis == 0 ? in.x : in.y;
+		for (int i = 0; i < in.n; i++) {
+			int j = (i + 1) % in.n;
+			double d1 = sign * (c[i] - limit);
+			double d2 = sign * (c[j] - limit);
+			if (d1 >= 0)
+				add(out, in.x[i], in.y[i], in.w == null ? 1 : in.w[i], in.rgb[i], in.u == null ? 0 : in.u[i], in.v == null ? 0 : in.v[i], in.f == null ? 1 : in.f[i]);
+			if ((d1 >= 0) != (d2 >= 0)) {
+				double t = d1 / (d1 - d2);
+				double x = in.x[i] + t * (in.x[j] - in.x[i]);
+				double y = in.y[i] + t * (in.y[j] - in.y[i]);
+				double w = 1, tw = t;
+				if (in.w != null) {// 1/w is linear in screen space, tw is the parameter along the edge in 3d space
+					w = 1 / (1 / in.w[i] + t * (1 / in.w[j] - 1 / in.w[i]));
+					tw = t * w / in.w[j];
+				}
+				add(out, x, y, w, lerpRGB(in.rgb[i], in.rgb[j], tw),
+					in.u == null ? 0 : in.u[i] + tw * (in.u[j] - in.u[i]), in.v == null ? 0 : in.v[i] + tw * (in.v[j] - in.v[i]),
+					in.f == null ? 1 : in.f[i] + tw * (in.f[j] - in.f[i]));
+			}
+		}
+		return out;
+	}
+
+	private static void add(Clipped polygon, double x, double y, double w, int rgb, double u, double v, double f) {
+		polygon.x[polygon.n] = x;
+		polygon.y[polygon.n] = y;
+		if (polygon.w != null)
+			polygon.w[polygon.n] = w;
+		if (polygon.u != null) {
+			polygon.u[polygon.n] = u;
+			polygon.v[polygon.n] = v;
+		}
+		if (polygon.f != null)
+			polygon.f[polygon.n] = f;
+		polygon.rgb[polygon.n] = rgb;
+		polygon.n++;
+	}
+
+	private static int lerpRGB(int c1, int c2, double t) {
+		int r = (int) Math.round(((c1 >> 16) & 0xFF) + t * (((c2 >> 16) & 0xFF) - ((c1 >> 16) & 0xFF)));
+		int g = (int) Math.round(((c1 >> 8) & 0xFF) + t * (((c2 >> 8) & 0xFF) - ((c1 >> 8) & 0xFF)));
+		int b = (int) Math.round((c1 & 0xFF) + t * ((c2 & 0xFF) - (c1 & 0xFF)));
+		return (r << 16) | (g << 8) | b;
+	}
+}
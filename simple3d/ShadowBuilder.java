@@ -0,0 +1,301 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ShadowBuilder precomputes the shadows of static lights on static polygons.
+ * Each polygon facing a light (occluder) defines a shadow volume bounded by its plane and by the planes through the light and its edges,
+ * polygons crossing a shadow volume are split with Polyface3D.split() and the fragments inside are marked in Polyface3D.shadowMask,
+ * bit i is set if the fragment is in the shadow of light i. Only the first 64 lights cast shadows.
+ * Candidate occluders of a polygon are found with a grid in light space: the 6 faces of a cube centered in a point light,
+ * or a plane orthogonal to a directional light.
+ * v1.0 18-10-2026: first release
+ */
+public class ShadowBuilder {
+	public final static int MAX_LIGHTS = 64;
+	private final static int MAX_FRAGMENTS = 256;// maximum number of fragments of a polygon, further occluders are ignored
+	private final static double EPSILON = 1e-5;
+
+	private ShadowBuilder() {}
+
+	/**
+     * Returns the polygons split in lit and shadowed fragments, vertices created by splitting polygons with shared vertices are appended to vertexPool
+	 */
+	public static List<Polyface3D> build(List<Polyface3D> polygons, List<Light3D> lights, List<Vector3D> vertexPool) {
+		int n_lights = Math.min(lights.size(), MAX_LIGHTS);
+		for (int li = 0; li < n_lights; li++)
+			polygons = castShadows(polygons, lights.get(li), 1L << li, vertexPool);
+		return polygons;
+	}
+
+	private static List<Polyface3D> castShadows(List<Polyface3D> polygons, Light3D light, long lightBit, List<Vector3D> vertexPool) {
+		int n = polygons.size();
+		boolean[] facing = new boolean[n];
+		for (int i = 0; i < n; i++)
+			facing[i] = facesLight(polygons.get(i), light);
+		LightGrid grid = new LightGrid(light, polygons, facing);
+
+		List<Polyface3D> result = new ArrayList<>(n);
+		int[] visited = new int[n];// stamp of last receiver that visited the occluder
+		Arrays.fill(visited, -1);
+		Vector3D center = new Vector3D(0, 0, 0);
+		for (int r = 0; r < n; r++) {
+			Polyface3D receiver = polygons.get(r);
+			if (!facing[r]) {// polygons facing away are not lit, shadow is not relevant
+				result.add(receiver);
+				continue;
+			}
+			double radius = boundingSphere(receiver, center);
+			List<Polyface3D> inShadow = new ArrayList<>();
+			List<Polyface3D> pending = new ArrayList<>();// fragments not yet in shadow
+			pending.add(receiver);
+			for (int cell : grid.cells(receiver)) {
+				for (int k = 0; k < grid.counts[cell]; k++) {
+					int o = grid.cells[cell][k];
+					if (o == r || visited[o] == r)
+						continue;
+					visited[o] = r;
+					Polyface3D occluder = polygons.get(o);
+					// quick rejection: receiver shall be at least in part behind the plane of occluder
+					int side = receiver.classify(occluder);
+					if (side == Polyface3D.FRONT || side == Polyface3D.COPLANAR)
+						continue;
+					Polyface3D[] planes = shadowVolume(occluder, light);
+					if (planes == null || outside(center, radius, planes))
+						continue;
+					List<Polyface3D> next = new ArrayList<>();
+					for (Polyface3D fragment : pending) {
+						Polyface3D shadowed = clip(fragment, planes, next, vertexPool);
+						if (shadowed != null) {
+							shadowed.shadowMask |= lightBit;
+							inShadow.add(shadowed);// fully processed for this light
+						}
+					}
+					pending = next;
+					if (pending.isEmpty() || inShadow.size() + pending.size() > MAX_FRAGMENTS)
+						break;
+				}
+				if (pending.isEmpty() || inShadow.size() + pending.size() > MAX_FRAGMENTS)
+					break;
+			}
+			result.addAll(pending);
+			result.addAll(inShadow);
+		}
+		return result;
+	}
+
+	/**
+     * Clips polygon against the shadow volume, the parts outside are added to outside, returns the part inside or null
+	 */
+	private static Polyface3D clip(Polyface3D polygon, Polyface3D[] planes, List<Polyface3D> outside, List<Vector3D> vertexPool) {
+		Polyface3D inside = polygon;
+		List<Polyface3D> parts = new ArrayList<>();// parts outside of the volume
+		List<Polyface3D> back = new ArrayList<>();
+		for (Polyface3D plane : planes) {// the normal of each plane points outside of the volume
+			int classification = inside.classify(plane);
+			if (classification == Polyface3D.FRONT || classification == Polyface3D.COPLANAR) {
+				outside.add(polygon);// no intersection, original polygon is kept without splits
+				return null;
+			}
+			if (classification == Polyface3D.SPANNING) {
+				back.clear();
+				inside.split(plane, parts, back, vertexPool);
+				if (back.isEmpty()) {
+					outside.add(polygon);
+					return null;
+				}
+				inside = back.get(0);
+			}
+		}
+		outside.addAll(parts);
+		return inside;
+	}
+
+	/**
+     * Returns the planes bounding the shadow volume of occluder with normals pointing outside, or null if occluder is degenerate
+	 */
+	private static Polyface3D[] shadowVolume(Polyface3D occluder, Light3D light) {
+		int n = occluder.vertices.length;
+		Polyface3D[] planes = new Polyface3D[n + 1];
+		Vector3D center = new Vector3D(0, 0, 0);
+		for (Vector3D v : occluder.vertices)
+			center.add(v);
+		center.divide(n);
+		for (int i = 0; i < n; i++) {
+			Vector3D a = occluder.vertices[i];
+			Vector3D b = occluder.vertices[(i + 1) % n];
+			Vector3D c = light.directional ? a.clone().subtract(light.lightPos) : light.lightPos;// third point of the plane
+			Polyface3D plane = new Polyface3D(null, a, b, c);
+			if (plane.normal.squaredMagnitude() == 0)
+				return null;
+			if (center.subtract(a, new Vector3D(0, 0, 0)).dot(plane.normal) > 0)
+				plane.normal.multiply(-1);// normal shall point outside
+			planes[i] = plane;
+		}
+		// plane of occluder, normal points toward the light, so the shadow is in the back
+		planes[n] = occluder;
+		return planes;
+	}
+
+	private static boolean outside(Vector3D center, double radius, Polyface3D[] planes) {
+		for (Polyface3D plane : planes)
+			if (center.subtract(plane.vertices[0], new Vector3D(0, 0, 0)).dot(plane.normal) > radius)
+				return true;
+		return false;
+	}
+
+	private static boolean facesLight(Polyface3D poly, Light3D light) {
+		Vector3D toLight = light.directional ? light.lightPos : light.lightPos.subtract(poly.vertices[0], new Vector3D(0, 0, 0));
+		return poly.normal.dot(toLight) > EPSILON;
+	}
+
+	private static double boundingSphere(Polyface3D poly, Vector3D center) {
+		center.set(0, 0, 0);
+		for (Vector3D v : poly.vertices)
+			center.add(v);
+		center.divide(poly.vertices.length);
+		double radius = 0;
+		for (Vector3D v : poly.vertices)
+			radius = Math.max(radius, v.subtract(center, new Vector3D(0, 0, 0)).length());
+		return radius;
+	}
+
+	/**
+	 * Grid of occluders in light space. A point light uses the 6 faces of a cube centered in the light,
+	 * a directional light uses the plane orthogonal to the light direction. The shadow volume of an occluder projects in the same cells of the occluder.
+	 */
+	private static class LightGrid {
+		final Light3D light;
+		final int faces, size;// number of faces and cells per side
+		final double[] min = new double[2], max = new double[2];// bounds of coordinates for a directional light
+		final Vector3D u, v;// basis of plane orthogonal to a directional light
+		final int[][] cells;// occluders for each cell
+		final int[] counts;
+
+		LightGrid(Light3D light, List<Polyface3D> polygons, boolean[] facing) {
+			this.light = light;
+			faces = light.directional ? 1 : 6;
+			int n_occluders = 0;
+			for (boolean f : facing)
+				if (f) n_occluders++;
+			size = Math.max(1, Math.min(256, (int) Math.sqrt(n_occluders / faces)));
+			if (light.directional) {
+				Vector3D d = light.lightPos;
+				Vector3D axis = Math.abs(d.x) < 0.9 ? new Vector3D(1, 0, 0) : new Vector3D(0, 1, 0);
+				u = d.cross(axis).normalize();
+				v = d.cross(u).normalize();
+				min[0] = min[1] = Double.MAX_VALUE;
+				max[0] = max[1] = -Double.MAX_VALUE;
+				for (Polyface3D poly : polygons)
+					for (Vector3D p : poly.vertices) {
+						double pu = p.dot(u), pv = p.dot(v);
+						min[0] = Math.min(min[0], pu); max[0] = Math.max(max[0], pu);
+						min[1] = Math.min(min[1], pv); max[1] = Math.max(max[1], pv);
+					}
+			} else {
+				u = v = null;
+				min[0] = min[1] = -1;
+				max[0] = max[1] = 1;
+			}
+			cells = new int[faces * size * size][];
+			counts = new int[cells.length];
+			for (int i = 0; i < polygons.size(); i++)
+				if (facing[i])
+					for (int cell : cells(polygons.get(i))) {
+						if (cells[cell] == null)
+							cells[cell] = new int[4];
+						else if (counts[cell] == cells[cell].length)
+							cells[cell] = Arrays.copyOf(cells[cell], counts[cell] * 2);
+						cells[cell][counts[cell]++] = i;
+					}
+		}
+
+		// returns the cells covered by the projection of poly
+		int[] cells(Polyface3D poly) {
+			int[] result = new int[0];
+			double[] rect = new double[4];
+			for (int face = 0; face < faces; face++) {
+				if (!project(poly, face, rect))
+					continue;
+				int x0 = cell(rect[0], 0), x1 = cell(rect[1], 0);
+				int y0 = cell(rect[2], 1), y1 = cell(rect[3], 1);
+				int k = result.length;
+				result = Arrays.copyOf(result, k + (x1 - x0 + 1) * (y1 - y0 + 1));
+				for (int y = y0; y <= y1; y++)
+					for (int x = x0; x <= x1; x++)
+						result[k++] = (face * size + y) * size + x;
+			}
+			return result;
+		}
+
+		private int cell(double value, int axis) {
+			if (max[axis] <= min[axis])
+				return 0;
+			int c = (int) ((value - min[axis]) / (max[axis] - min[axis]) * size);
+			return Math.max(0, Math.min(size - 1, c));
+		}
+
+		// bounding rectangle {minU, maxU, minV, maxV} of the projection of poly on face, returns false if poly is not visible on face
+		private boolean project(Polyface3D poly, int face, double[] rect) {
+			rect[0] = rect[2] = Double.MAX_VALUE;
+			rect[1] = rect[3] = -Double.MAX_VALUE;
+			if (light.directional) {
+				for (Vector3D p : poly.vertices) {
+					double pu = p.dot(u), pv = p.dot(v);
+					rect[0] = Math.min(rect[0], pu); rect[1] = Math.max(rect[1], pu);
+					rect[2] = Math.min(rect[2], pv); rect[3] = Math.max(rect[3], pv);
+				}
+				return true;
+			}
+			int axis = face >> 1;
+			double sign = (face & 1) == 0 ? 1 : -1;
+			boolean visible = false, behind = false;
+			for (Vector3D p : poly.vertices) {
+				double dx = p.x - light.lightPos.x, dy = p.y - light.lightPos.y, dz = p.z - light.lightPos.z;
+				double a, s, t;// depth along face axis and coordinates on the face
+				if (axis == 0) { a = sign * dx; s = dy; t = dz; }
+				else if (axis == 1) { a = sign * dy; s = dz; t = dx; }
+				else { a = sign * dz; s = dx; t = dy; }
+				if (a <= EPSILON) {
+					behind = true;
+					continue;
+				}
+				visible = true;
+				rect[0] = Math.min(rect[0], s / a); rect[1] = Math.max(rect[1], s / a);
+				rect[2] = Math.min(rect[2], t / a); rect[3] = Math.max(rect[3], t / a);
+			}
+			if (!visible)
+				return false;
+			if (behind) {// projection is unbounded, the whole face is used
+				rect[0] = rect[2] = -1;
+				rect[1] = rect[3] = 1;
+			}
+			return rect[0] <= 1 && rect[1] >= -1 && rect[2] <= 1 && rect[3] >= -1;
+		}
+	}
+}
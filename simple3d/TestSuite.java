@@ -0,0 +1,259 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import json.JSONException;
+/* 
+TestSuite to perform automatic tests of simple3d engine: the vertex stage in float precision is compared with the vertex stage
+in double precision rendering sample worlds in several view directions, checking the bounds stated by Engine3D.setFloatPrecision(),
+polygon merging is checked on grids of coplanar triangles, comparing polygons and images with merging enabled and disabled
+
+compile: javac -encoding UTF-8 simple3d\TestSuite.java
+
+run from the folder of sample worlds: java simple3d.TestSuite [world files]
+
+*/
+
+final public class TestSuite {
+	private final static int WIDTH = 1000;
+	private final static int HEIGHT = 500;
+	private final static int N_VIEWS = 8;//view directions, 45 degrees apart
+	private final static double MAX_VERTEX_ERROR = 1e-3;//pixels, vertices on screen farther than 1 from the camera
+	private final static double MAX_NEAR_VERTEX_ERROR = 1;//pixels, vertices on screen near to the camera
+	private final static double MAX_DIFFERING_PIXELS = 2e-5;//fraction of pixels, 0.002%
+	private final static String[] WORLDS = {"town.json.gz", "castles.json.gz", "pyramids.json.gz", "mountain.gz", "512-spheres.gz"};
+
+	static class testReport {
+		int n_tests;
+		int n_failed;
+	}
+
+	//screen coordinates and w of projected vertices, and pixels of each view
+	static class Frames {
+		final List<double[]> vertices = new ArrayList<>();
+		final int[][] pixels = new int[N_VIEWS][];
+	}
+
+	public static void main(String[] args) throws JSONException, IOException {
+		TestSuite ts = new TestSuite();
+		ts.run(args);
+	}
+
+	private void run(String[] args) throws JSONException, IOException {
+		testReport tr = new testReport();
+		String[] worlds = args.length > 0 ? args : WORLDS;
+		int num = 1;
+		for (String world : worlds) {
+			check_float_precision(num, tr, world);
+			num += 3;
+		}
+		check_polygon_merging(num, tr);
+		if (tr.n_failed > 0) System.out.println(tr.n_tests + " test performed with " + tr.n_failed + " test failed");
+		else System.out.println(tr.n_tests + " test performed without any failures");
+	}
+
+/*
+check_float_precision(): render world with both vertex stages and check the errors of vertices and the fraction of differing pixels
+*/
+	public static void check_float_precision(int num, testReport tr, String world) throws JSONException, IOException {
+		Frames frames = render(world, false);
+		Frames floatFrames = render(world, true);
+		tr.n_tests += 3;
+		if (frames.vertices.size() != floatFrames.vertices.size()) {
+			tr.n_failed += 3;
+			System.out.println("test " + num + " failed, " + world + ": " + floatFrames.vertices.size() + " projected vertices <-> " + frames.vertices.size());
+			return;
+		}
+		double maxError = 0, maxNearError = 0;
+		for (int i = 0; i < frames.vertices.size(); i++) {
+			double[] expected = frames.vertices.get(i), result = floatFrames.vertices.get(i);
+			if (expected[0] < 0 || expected[0] > WIDTH || expected[1] < 0 || expected[1] > HEIGHT)
+				continue;//off screen
+			double error = Math.max(Math.abs(result[0] - expected[0]), Math.abs(result[1] - expected[1]));
+			if (expected[2] > 1)
+				maxError = Math.max(maxError, error);
+			else maxNearError = Math.max(maxNearError, error);
+		}
+		if (maxError > MAX_VERTEX_ERROR) {
+			tr.n_failed++;
+			System.out.println("test " + num + " failed, " + world + ": vertex error " + maxError + " pixels <-> " + MAX_VERTEX_ERROR);
+		}
+		if (maxNearError > MAX_NEAR_VERTEX_ERROR) {
+			tr.n_failed++;
+			System.out.println("test " + (num + 1) + " failed, " + world + ": error of vertices near to the camera " + maxNearError + " pixels <-> " + MAX_NEAR_VERTEX_ERROR);
+		}
+		int differing = 0;
+		for (int k = 0; k < N_VIEWS; k++)
+			for (int i = 0; i < frames.pixels[k].length; i++)
+				if (frames.pixels[k][i] != floatFrames.pixels[k][i])
+					differing++;
+		double fraction = (double) differing / (N_VIEWS * WIDTH * HEIGHT);
+		if (fraction > MAX_DIFFERING_PIXELS) {
+			tr.n_failed++;
+			System.out.println("test " + (num + 2) + " failed, " + world + ": fraction of differing pixels " + fraction + " <-> " + MAX_DIFFERING_PIXELS);
+		}
+	}
+
+/*
+render(): render world in N_VIEWS directions with Gouraud shading, recording the projected vertices
+*/
+	private static Frames render(String world, boolean floatPrecision) throws JSONException, IOException {
+		Engine3D engine = new Engine3D(false);
+		engine.importFile(world);
+		engine.setFloatPrecision(floatPrecision);
+		engine.setupScene(Math.toRadians(60), (double) HEIGHT / WIDTH);
+		Rasterizer rasterizer = new Rasterizer(WIDTH, HEIGHT);
+		Frames frames = new Frames();
+		for (int k = 0; k < N_VIEWS; k++) {
+			rasterizer.clear(0);
+			engine.render3D(k * Math.PI / 4, (projectedVertices, poly) -> {
+				int n = projectedVertices.size();
+				double[] x = new double[n], y = new double[n];
+				int[] colors = new int[n];
+				int[] vertexRGB = engine.getVertexShaderRGB(poly);
+				int i = 0;
+				for (Engine3D.ClippedVertex cv : projectedVertices) {
+					Vector3D v = cv.clipped;
+					x[i] = (v.x + 1) * 0.5 * WIDTH;
+					y[i] = (1.0 - v.y) * 0.5 * HEIGHT;
+					colors[i] = cv.interpolateRGB(vertexRGB);
+					frames.vertices.add(new double[] {x[i], y[i], v.getW()});
+					i++;
+				}
+				rasterizer.fillGouraudPolygon(x, y, colors, n);
+			});
+			frames.pixels[k] = rasterizer.getPixels().clone();
+		}
+		return frames;
+	}
+
+/*
+check_polygon_merging(): render grids of coplanar triangles with merging enabled and disabled, polygons of both grids shall be merged
+into a polygon for each color, keeping their colors and the image, and they shall not be merged if a point light is present
+*/
+	public static void check_polygon_merging(int num, testReport tr) {
+		Light3D sun = Light3D.createDirectional(Color.WHITE, -1, -2, 1);
+		Light3D lamp = new Light3D(Color.WHITE, 0, 10, 10);
+		int[][] pixels = new int[1][];
+		List<Polyface3D> polygons = renderGrids(false, sun, pixels);
+		int[][] mergedPixels = new int[1][];
+		List<Polyface3D> merged = renderGrids(true, sun, mergedPixels);
+		tr.n_tests += 4;
+		if (merged.size() != GRID_COLORS.length) {// a single polygon for each color, joining the grids
+			tr.n_failed++;
+			System.out.println("test " + num + " failed, polygon merging: " + polygons.size() + " polygons -> " + merged.size() + " <-> " + GRID_COLORS.length);
+		}
+		for (Polyface3D poly : merged)
+			if (poly.colorIndex < 0 || !poly.color.equals(GRID_COLORS[poly.colorIndex])) {
+				tr.n_failed++;
+				System.out.println("test " + (num + 1) + " failed, polygon merging: color index " + poly.colorIndex + " of polygon with color " + poly.color);
+				break;
+			}
+		if (!Arrays.equals(pixels[0], mergedPixels[0])) {
+			tr.n_failed++;
+			System.out.println("test " + (num + 2) + " failed, polygon merging: image changed");
+		}
+		if (renderGrids(true, lamp, null).size() != renderGrids(false, lamp, null).size()) {
+			tr.n_failed++;
+			System.out.println("test " + (num + 3) + " failed, polygon merging: polygons merged with point light");
+		}
+	}
+
+	private final static int GRID_SIZE = 8;
+	private final static Color[] GRID_COLORS = {Color.RED, Color.BLUE};
+
+/*
+renderGrids(): render two adjacent grids, the first one with shared vertices and the second one repeating the vertices of each triangle,
+returns the rendered polygons and stores the pixels of the frame, if pixels is not null
+*/
+	private static List<Polyface3D> renderGrids(boolean merging, Light3D light, int[][] pixels) {
+		Engine3D engine = new Engine3D(false);
+		engine.addMesh(createGrid("shared", true));
+		engine.addMesh(createGrid("repeated", false));
+		for (int i = 0; i < 2; i++) {
+			Node node = new Node("grid" + i, i == 0 ? "shared" : "repeated", Color.WHITE);
+			node.setColorList(GRID_COLORS);
+			node.applyTranslation(GRID_SIZE * (i - 1), 0, 2);
+			engine.getSceneNodes().add(node);
+		}
+		engine.setLight(light);
+		engine.setCameraPos(new Vector3D(0, 3, 0));
+		engine.setPolygonMerging(merging);
+		engine.setupScene(Math.toRadians(60), (double) HEIGHT / WIDTH);
+		Rasterizer rasterizer = new Rasterizer(WIDTH, HEIGHT);
+		rasterizer.clear(0);
+		List<Polyface3D> polygons = new ArrayList<>();
+		engine.render3D(0, (projectedVertices, poly) -> {
+			int n = projectedVertices.size();
+			double[] x = new double[n], y = new double[n];
+			int i = 0;
+			for (Engine3D.ClippedVertex cv : projectedVertices) {
+				x[i] = (cv.clipped.x + 1) * 0.5 * WIDTH;
+				y[i] = (1.0 - cv.clipped.y) * 0.5 * HEIGHT;
+				i++;
+			}
+			rasterizer.fillPolygon(x, y, n, engine.getFlatShaderRGB(poly));
+			polygons.add(poly);
+		});
+		if (pixels != null)
+			pixels[0] = rasterizer.getPixels().clone();
+		return polygons;
+	}
+
+/*
+createGrid(): creates a grid of GRID_SIZE x GRID_SIZE squares in plane y = 0, each square is split in two triangles facing up,
+near and far halves of the grid have color indexes 0 and 1
+*/
+	private static Mesh createGrid(String id, boolean shared) {
+		List<Vector3D> vertices = new ArrayList<>();
+		List<Polygon3D> polygons = new ArrayList<>();
+		for (int x = 0; x < GRID_SIZE; x++)
+			for (int z = 0; z < GRID_SIZE; z++) {
+				double[][] corners = {{x, z}, {x, z + 1}, {x + 1, z}, {x + 1, z}, {x, z + 1}, {x + 1, z + 1}};
+				for (int t = 0; t < 2; t++) {
+					Integer[] indexes = new Integer[3];
+					for (int k = 0; k < 3; k++) {
+						double[] corner = corners[t * 3 + k];
+						int index = shared ? (int) corner[0] * (GRID_SIZE + 1) + (int) corner[1] : vertices.size();
+						if (!shared)
+							vertices.add(new Vector3D(corner[0], 0, corner[1]));
+						indexes[k] = index;
+					}
+					Polygon3D polygon = new Polygon3D(null, indexes);
+					polygon.setColorIndex(z < GRID_SIZE / 2 ? 0 : 1);
+					polygons.add(polygon);
+				}
+			}
+		if (shared)
+			for (int x = 0; x <= GRID_SIZE; x++)
+				for (int z = 0; z <= GRID_SIZE; z++)
+					vertices.add(new Vector3D(x, 0, z));
+		return Mesh.createMesh(id, vertices.toArray(new Vector3D[0]), polygons);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+/**
+ * Texture holds an image as int[] arrays of pixels 0xRRGGBB, with a chain of mip levels down to 1x1 pixel.
+ * Width and height of level 0 are powers of 2, images of other sizes are resampled when the texture is created,
+ * so texture coordinates can wrap around using bit masks. Each mip level is half the size of the previous one, computed with a 2x2 box filter.
+ * Texture coordinates (u, v) range from 0 to 1 over the whole image, v grows downwards: a texture can be used as an atlas holding
+ * the images of many polygons, each polygon refers to its region of the atlas with its texture coordinates.
+ * Image files are decoded by the TextureLoader registered in TextureCache, so this class has no dependency on a graphic environment.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: decoding of image files moved to TextureLoader
+ */
+public class Texture {
+	public final static int MAX_SIZE = 4096;//maximum width and height of level 0
+
+	final int[][] levels;//levels[0] is the full size image
+	final int[] widthBits, heightBits;//width and height of levels as powers of 2
+
+	public Texture(int width, int height, int[] rgb) {
+		if (width < 1 || height < 1 || rgb.length < width * height)
+			throw new IllegalArgumentException("incorrect size of texture: " + width + "x" + height);
+		int bitsX = ceilLog2(Math.min(width, MAX_SIZE));
+		int bitsY = ceilLog2(Math.min(height, MAX_SIZE));
+		int n_levels = Math.max(bitsX, bitsY) + 1;
+		levels = new int[n_levels][];
+		widthBits = new int[n_levels];
+		heightBits = new int[n_levels];
+		levels[0] = resample(rgb, width, height, 1 << bitsX, 1 << bitsY);
+		widthBits[0] = bitsX;
+		heightBits[0] = bitsY;
+		for (int level = 1; level < n_levels; level++) {
+			widthBits[level] = Math.max(0, widthBits[level - 1] - 1);
+			heightBits[level] = Math.max(0, heightBits[level - 1] - 1);
+			levels[level] = reduce(levels[level - 1], widthBits[level - 1], heightBits[level - 1], widthBits[level], heightBits[level]);
+		}
+	}
+
+	public int getWidth() {
+		return 1 << widthBits[0];
+	}
+
+	public int getHeight() {
+		return 1 << heightBits[0];
+	}
+
+	public int getLevelCount() {
+		return levels.length;
+	}
+
+	/**
+     * Returns the average color of the texture packed as 0xRRGGBB
+	 */
+	public int getAverageRGB() {
+		return levels[levels.length - 1][0];
+	}
+
+	/**
+     * Returns memory used by pixels of all levels in bytes
+	 */
+	public long getMemorySize() {
+		long size = 0;
+		for (int[] level : levels)
+			size += level.length * 4L;
+		return size;
+	}
+
+	/**
+     * Returns the texel at texture coordinates (u, v) of given mip level, nearest texel is used and coordinates wrap around
+	 */
+	public int getTexel(double u, double v, int level) {
+		int bitsX = widthBits[level], bitsY = heightBits[level];
+		int x = (int) Math.floor(u * (1 << bitsX)) & ((1 << bitsX) - 1);
+		int y = (int) Math.floor(v * (1 << bitsY)) & ((1 << bitsY) - 1);
+		return levels[level][(y << bitsX) | x];
+	}
+
+	private static int ceilLog2(int value) {
+		return 32 - Integer.numberOfLeadingZeros(value - 1);
+	}
+
+	//nearest pixel resampling to size width2 x height2, alpha is removed
+	private static int[] resample(int[] rgb, int width, int height, int width2, int height2) {
+		int[] result = new int[width2 * height2];
+		for (int y = 0; y < height2; y++) {
+			int offset = (int) ((long) y * height / height2) * width;
+			for (int x = 0; x < width2; x++)
+				result[y * width2 + x] = rgb[offset + (int) ((long) x * width / width2)] & 0xFFFFFF;
+		}
+		return result;
+	}
+
+	//2x2 box filter, a dimension already reduced to 1 pixel is kept
+	private static int[] reduce(int[] rgb, int bitsX, int bitsY, int bitsX2, int bitsY2) {
+		int width = 1 << bitsX;
+		int dx = bitsX > bitsX2 ? 1 : 0, dy = bitsY > bitsY2 ? width : 0;
+		int[] result = new int[1 << (bitsX2 + bitsY2)];
+		for (int y = 0; y < (1 << bitsY2); y++)
+			for (int x = 0; x < (1 << bitsX2); x++) {
+				int idx = ((y << bitsY - bitsY2) << bitsX) + (x << bitsX - bitsX2);
+				int c0 = rgb[idx], c1 = rgb[idx + dx], c2 = rgb[idx + dy], c3 = rgb[idx + dx + dy];
+				int r = (((c0 >> 16) & 0xFF) + ((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF) + ((c3 >> 16) & 0xFF) + 2) >> 2;
+				int g = (((c0 >> 8) & 0xFF) + ((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF) + ((c3 >> 8) & 0xFF) + 2) >> 2;
+				int b = ((c0 & 0xFF) + (c1 & 0xFF) + (c2 & 0xFF) + (c3 & 0xFF) + 2) >> 2;
+				result[(y << bitsX2) + x] = (r << 16) | (g << 8) | b;
+			}
+		return result;
+	}
+}
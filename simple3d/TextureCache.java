@@ -0,0 +1,113 @@
+/*
+License Information, 2026 Livio (javalc6)
+
+Feel free to modify, re-use this software, please give appropriate
+credit by referencing this Github repository.
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+    http://www.apache.org/licenses/LICENSE-2.0
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+IMPORTANT NOTICE
+Note that this software is freeware and it is not designed, licensed or
+intended for use in mission critical, life support and military purposes.
+The use of this software is at the risk of the user.
+
+DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
+*/
+package simple3d;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * TextureCache loads textures referenced by the "texture" field of meshes.
+ * Decoded textures with their mip levels are kept in a LRU cache shared by all Engine3D instances, keyed by path of image file,
+ * so that an image used by several meshes or worlds is loaded only once.
+ * Memory is bounded: least recently used textures are evicted when the total size of cached textures exceeds the capacity,
+ * the most recently used texture is always kept. Evicted textures are still valid for polygons already using them.
+ * Image files are decoded by the TextureLoader set with setLoader(), textures cannot be loaded until a loader is set.
+ * v1.0 18-10-2026: first release
+ *      18-10-2026: image files are decoded by a pluggable TextureLoader
+ */
+public class TextureCache {
+	public final static long DEFAULT_CAPACITY = 64L << 20;//bytes
+
+	private static long capacity = DEFAULT_CAPACITY;
+	private static long memorySize = 0;//bytes used by cached textures
+	private static TextureLoader loader;//decoder of image files, set by the application
+
+	private final static LinkedHashMap<String, Texture> cache = new LinkedHashMap<>(16, 0.75f, true);//access order
+
+	private TextureCache() {}
+
+	/**
+     * Returns the texture loaded from image file, the file is loaded only if the texture is not in cache
+	 */
+	public static synchronized Texture getTexture(String path) throws IOException {
+		String key = new File(path).getCanonicalPath();
+		Texture texture = cache.get(key);
+		if (texture == null) {
+			if (loader == null)
+				throw new IOException("no TextureLoader to load texture file " + path + ", use TextureCache.setLoader()");
+			texture = loader.load(key);
+			cache.put(key, texture);
+			memorySize += texture.getMemorySize();
+			evict();
+		}
+		return texture;
+	}
+
+	/**
+     * Sets the loader used to decode image files, like one based on ImageIO or on the image API of the platform
+	 */
+	public static synchronized void setLoader(TextureLoader loader) {
+		TextureCache.loader = loader;
+	}
+
+	public static synchronized TextureLoader getLoader() {
+		return loader;
+	}
+
+	/**
+     * Sets maximum memory in bytes used by cached textures
+	 */
+	public static synchronized void setCapacity(long capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity shall be greater than 0");
+		TextureCache.capacity = capacity;
+		evict();
+	}
+
+	public static synchronized int size() {
+		return cache.size();
+	}
+
+	/**
+     * Returns memory in bytes used by cached textures
+	 */
+	public static synchronized long getMemorySize() {
+		return memorySize;
+	}
+
+	public static synchronized void clear() {
+		cache.clear();
+		memorySize = 0;
+	}
+
+	//removes least recently used textures, the most recently used one is kept
+	private static void evict() {
+		Iterator<Texture> iterator = cache.values().iterator();
+		while (memorySize > capacity && cache.size() > 1) {
+			memorySize -= iterator.next().getMemorySize();
+			iterator.remove();
+		}
+	}
+}
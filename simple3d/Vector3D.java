@@ -23,6 +23,7 @@ DO NOT USE THIS SOFTWARE IF YOU DON'T AGREE WITH STATED CONDITIONS.
 */
 package simple3d;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 
@@ -31,6 +32,7 @@ import json.*;
 /**
  * 3D vector or point (x, y, z) with a fourth component (w) for homogeneous coordinates.
  * v1.0 12-12-2025: first release
+ * v1.0.3 18-10-2026: added getW()
  */
 public class Vector3D implements Dumpable {
 	public double x, y, z;//public for fast access
@@ -109,6 +111,10 @@ public class Vector3D implements Dumpable {
 		return this;
 	}
 
+	public double getW() {// for projected vertices, w is the depth before perspective divide
+		return w;
+	}
+
 	public double length() {
 		return Math.sqrt(x * x + y * y + z * z);
 	}
@@ -165,4 +171,8 @@ public class Vector3D implements Dumpable {
 		vector.add(BigDecimal.valueOf(z));
 		return new JSONArray(vector);
 	}
+
+	public void save(JSONWriter out) throws IOException {
+		out.beginArray().value(x).value(y).value(z).endArray();
+	}
 }
\ No newline at end of file